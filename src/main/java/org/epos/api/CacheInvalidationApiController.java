@@ -2,6 +2,8 @@ package org.epos.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dao.EposDataModelDAO;
+import org.epos.core.MappingModelCache;
+import org.epos.core.export.ExportCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -32,6 +34,8 @@ public class CacheInvalidationApiController implements CacheInvalidationApi {
 	@Override
 	public ResponseEntity<Object> resourcesInvalidationCache() {
 		EposDataModelDAO.getInstance().clearAllCaches();
+		MappingModelCache.invalidate();
+		ExportCache.get().advance();
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
 }
@@ -0,0 +1,64 @@
+package org.epos.api;
+
+import java.util.List;
+
+import org.epos.core.ingestion.IngestionJob;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import model.StatusType;
+
+@Validated
+public interface IngestionJobApi {
+
+	@Operation(summary = "asynchronous metadata population", description = "Queues the ingestion and returns the job to poll. API for internal use only!.", tags = {
+			"Metadata Management Service" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "202", description = "Accepted.", content = @Content(mediaType = "application/json", schema = @Schema(implementation = IngestionJob.class))),
+			@ApiResponse(responseCode = "400", description = "Bad request."),
+			@ApiResponse(responseCode = "503", description = "Ingestion queue is full.")
+	})
+	@io.swagger.v3.oas.annotations.parameters.RequestBody(required = false, description = "metadata to ingest when no path is given, as for /populate", content = {
+			@Content(mediaType = "text/turtle"), @Content(mediaType = "application/zip"), @Content(mediaType = "application/x-tar"), @Content(mediaType = "multipart/form-data") })
+	@RequestMapping(value = "/populate/jobs", produces = { "application/json" }, consumes = { "text/turtle", "application/zip", "application/x-tar", "multipart/form-data", "*/*" }, method = RequestMethod.POST)
+	ResponseEntity<IngestionJob> submitIngestionJob(
+			@Parameter(in = ParameterIn.QUERY, description = "population type (single file or multiple lines file)", required = true, schema = @Schema(allowableValues = { "single", "multiple" })) @RequestParam(value = "type", required = true) String type,
+			@Parameter(in = ParameterIn.QUERY, description = "path of the file to use", required = false, schema = @Schema()) @RequestParam(value = "path", required = false) String path,
+			@Parameter(in = ParameterIn.QUERY, description = "metadata model", required = true, schema = @Schema()) @RequestParam(value = "model", required = true) String model,
+			@Parameter(in = ParameterIn.QUERY, description = "metadata mapping model", required = true, schema = @Schema()) @RequestParam(value = "mapping", required = true) String mapping,
+			@Parameter(in = ParameterIn.QUERY, description = "metadata group where the resource should be placed", required = false, schema = @Schema()) @RequestParam(value = "metadataGroup", required = false) String metadataGroup,
+			@Parameter(in = ParameterIn.QUERY, description = "status to ingest the file as", required = false, schema = @Schema()) @RequestParam(value = "status", required = false, defaultValue = "PUBLISHED") StatusType status,
+			@Parameter(in = ParameterIn.QUERY, description = "editor id for the ingested entities", required = false, schema = @Schema()) @RequestParam(value = "editorId", required = false, defaultValue = "ingestor") String editorId,
+			@Parameter(hidden = true) HttpServletRequest request);
+
+	@Operation(summary = "ingestion job status", description = "Status, per-phase progress, counts and errors of an ingestion job.", tags = {
+			"Metadata Management Service" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "ok.", content = @Content(mediaType = "application/json", schema = @Schema(implementation = IngestionJob.class))),
+			@ApiResponse(responseCode = "404", description = "Not Found")
+	})
+	@RequestMapping(value = "/populate/jobs/{id}", produces = { "application/json" }, method = RequestMethod.GET)
+	ResponseEntity<IngestionJob> getIngestionJob(
+			@Parameter(in = ParameterIn.PATH, description = "job id", required = true, schema = @Schema()) @PathVariable("id") String id);
+
+	@Operation(summary = "ingestion jobs", description = "Retained ingestion jobs, most recent first.", tags = {
+			"Metadata Management Service" })
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200", description = "ok.", content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = IngestionJob.class))))
+	})
+	@RequestMapping(value = "/populate/jobs", produces = { "application/json" }, method = RequestMethod.GET)
+	ResponseEntity<List<IngestionJob>> listIngestionJobs();
+}
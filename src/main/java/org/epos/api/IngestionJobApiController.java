@@ -0,0 +1,132 @@
+package org.epos.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.jena.riot.Lang;
+import org.epos.core.MetadataPopulator;
+import org.epos.core.MultipleFileIngestion;
+import org.epos.core.RDFSyntax;
+import org.epos.core.ingestion.IngestionJob;
+import org.epos.core.ingestion.IngestionJobService;
+import org.epos.eposdatamodel.Group;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import jakarta.servlet.http.HttpServletRequest;
+import model.StatusType;
+
+@RestController
+public class IngestionJobApiController implements IngestionJobApi {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(IngestionJobApiController.class);
+
+	private final IngestionJobService ingestionJobService;
+
+	@Autowired
+	public IngestionJobApiController(IngestionJobService ingestionJobService) {
+		this.ingestionJobService = ingestionJobService;
+	}
+
+	@Override
+	public ResponseEntity<IngestionJob> submitIngestionJob(String type, String path, String model, String mapping,
+			String metadataGroup, StatusType status, String editorId, HttpServletRequest request) {
+
+		boolean multiline = !type.equals("single");
+		boolean fromBody = path == null || path.isBlank();
+		if (multiline && fromBody) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		/** the job outlives the request, uploaded documents are spooled to temporary files **/
+		List<Path> spooled = new ArrayList<>();
+		if (fromBody) {
+			try {
+				MetadataPopulationApiController.readPayload(request, (name, contentType, content) -> spooled.add(spool(name, contentType, content)));
+			} catch (IOException | IllegalArgumentException e) {
+				LOGGER.error("[ERROR] Unable to read the ingestion payload: {}", e.getLocalizedMessage());
+				deleteAll(spooled);
+				return ResponseEntity.badRequest().build();
+			}
+			if (spooled.isEmpty()) {
+				return ResponseEntity.badRequest().build();
+			}
+		}
+
+		List<Group> selectedGroup = MetadataPopulationApiController.resolveGroups(metadataGroup);
+
+		try {
+			IngestionJob job = ingestionJobService.submit(type, fromBody ? MetadataPopulator.CONTENT_SOURCE : path, mapping, current -> {
+				if (fromBody) {
+					current.setFilesTotal(spooled.size());
+					try {
+						List<String> urls = spooled.stream().map(file -> file.toUri().toString()).toList();
+						/** the temporary names change on every upload, there is nothing to compare with **/
+						return MultipleFileIngestion.ingest(urls, mapping, selectedGroup, status, editorId, current, false);
+					} finally {
+						deleteAll(spooled);
+					}
+				}
+				List<String> urls;
+				try {
+					urls = multiline ? MetadataPopulationApiController.readUrlList(path) : List.of(path);
+				} catch (IOException e) {
+					throw new IllegalStateException("Unable to read the file list " + path + ": " + e.getLocalizedMessage(), e);
+				}
+				current.setFilesTotal(urls.size());
+				return MultipleFileIngestion.ingest(urls, mapping, selectedGroup, status, editorId, current);
+			});
+			return ResponseEntity.accepted()
+					.location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri())
+					.body(job);
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("[Ingestion job rejected] queue full, {} not queued", path);
+			deleteAll(spooled);
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "60").build();
+		}
+	}
+
+	private static Path spool(String name, String contentType, InputStream content) throws IOException {
+		String fileName = name.substring(name.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_")
+				/** spooled content is already decompressed **/
+				.replaceAll("\\.(gz|zst)$", "");
+		/** the spooled file is read back by URL, its extension carries the syntax **/
+		Lang lang = RDFSyntax.detect(contentType, fileName);
+		if (!lang.equals(RDFSyntax.detect(null, fileName))) fileName += "." + lang.getFileExtensions().get(0);
+		Path file = Files.createTempFile("ingestion-", "-" + fileName);
+		Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+		return file;
+	}
+
+	private static void deleteAll(List<Path> files) {
+		for (Path file : files) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				LOGGER.warn("Unable to delete the spooled document {}: {}", file, e.getLocalizedMessage());
+			}
+		}
+	}
+
+	@Override
+	public ResponseEntity<IngestionJob> getIngestionJob(String id) {
+		IngestionJob job = ingestionJobService.get(id);
+		return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+	}
+
+	@Override
+	public ResponseEntity<List<IngestionJob>> listIngestionJobs() {
+		return ResponseEntity.ok(ingestionJobService.list());
+	}
+}
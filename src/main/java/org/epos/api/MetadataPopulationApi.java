@@ -2,7 +2,6 @@ package org.epos.api;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -14,6 +13,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import model.StatusType;
 
 @jakarta.annotation.Generated(value = "io.swagger.codegen.v3.generators.java.SpringCodegen", date = "2021-10-12T08:15:11.660Z[GMT]")
@@ -32,7 +32,9 @@ public interface MetadataPopulationApi {
 			@ApiResponse(responseCode = "403", description = "Forbidden"),
 			@ApiResponse(responseCode = "404", description = "Not Found")
 	})
-	@RequestMapping(value = "/populate", produces = { "*/*" }, consumes = { "text/turtle", "*/*" }, method = RequestMethod.POST)
+	@io.swagger.v3.oas.annotations.parameters.RequestBody(required = false, description = "metadata to ingest when no path is given: a Turtle document, optionally with Content-Encoding gzip or zstd, a zip or tar archive of documents, or a multipart upload of such files", content = {
+			@Content(mediaType = "text/turtle"), @Content(mediaType = "application/zip"), @Content(mediaType = "application/x-tar"), @Content(mediaType = "multipart/form-data") })
+	@RequestMapping(value = "/populate", produces = { "*/*" }, consumes = { "text/turtle", "application/zip", "application/x-tar", "multipart/form-data", "*/*" }, method = RequestMethod.POST)
 	ResponseEntity<IngestionResult> metadataPopulate(
 			@Parameter(in = ParameterIn.QUERY, description = "population type (single file or multiple lines file)", required = true, schema = @Schema(allowableValues = { "single", "multiple" })) @RequestParam(value = "type", required = true) String type,
 			@Parameter(in = ParameterIn.QUERY, description = "path of the file to use", required = false, schema = @Schema()) @RequestParam(value = "path", required = false) String path,
@@ -41,5 +43,5 @@ public interface MetadataPopulationApi {
 			@Parameter(in = ParameterIn.QUERY, description = "metadata group where the resource should be placed", required = false, schema = @Schema()) @RequestParam(value = "metadataGroup", required = false) String metadataGroup,
 			@Parameter(in = ParameterIn.QUERY, description = "status to ingest the file as", required = false, schema = @Schema()) @RequestParam(value = "status", required = false, defaultValue = "PUBLISHED") StatusType status,
 			@Parameter(in = ParameterIn.QUERY, description = "editor id for the ingested entities", required = false, schema = @Schema()) @RequestParam(value = "editorId", required = false, defaultValue = "ingestor") String editorId,
-			@RequestBody(required = false) String body);
+			@Parameter(hidden = true) HttpServletRequest request);
 }
@@ -1,14 +1,25 @@
 package org.epos.api;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URL;
+import java.io.InputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import jakarta.annotation.Generated;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.epos.core.IngestionListener;
+import org.epos.core.IngestionPayload;
 import org.epos.core.MetadataPopulator;
+import org.epos.core.MultipleFileIngestion;
+import org.epos.core.SharedEntityRegistry;
+import org.epos.core.SourceFetcher;
 import org.epos.eposdatamodel.Group;
 import org.epos.eposdatamodel.LinkedEntity;
 import org.slf4j.Logger;
@@ -16,7 +27,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -32,45 +42,22 @@ public class MetadataPopulationApiController implements MetadataPopulationApi {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(MetadataPopulationApiController.class);
 
-	public MetadataPopulationApiController() {
-	}
+	private static final int EMPTY_OBJECT_PEEK = 64;
 
-	private boolean isBodyValid(String body) {
-		return body != null && !body.isBlank() && !body.equals("{}");
+	public MetadataPopulationApiController() {
 	}
 
-	public ResponseEntity<IngestionResult> metadataPopulate(
-			@Parameter(in = ParameterIn.QUERY, description = "population type (single file or multiple lines file)", required = true, schema = @Schema(allowableValues = {
-					"single", "multiple" })) @RequestParam(value = "type", required = true) String type,
-			@Parameter(in = ParameterIn.QUERY, description = "path of the file to use", required = false, schema = @Schema()) @RequestParam(value = "path", required = false) String path,
-			@Parameter(in = ParameterIn.QUERY, description = "metadata model", required = true, schema = @Schema()) @RequestParam(value = "model", required = true) String model,
-			@Parameter(in = ParameterIn.QUERY, description = "metadata mapping model", required = true, schema = @Schema()) @RequestParam(value = "mapping", required = true) String mapping,
-			@Parameter(in = ParameterIn.QUERY, description = "metadata group where the resource should be placed", required = false, schema = @Schema()) @RequestParam(value = "metadataGroup", required = false) String metadataGroup,
-			@Parameter(in = ParameterIn.QUERY, description = "status to ingest the file as", required = false, schema = @Schema()) @RequestParam(value = "status", required = false, defaultValue = "PUBLISHED") StatusType status,
-			@Parameter(in = ParameterIn.QUERY, description = "editor id for the ingested entities", required = false, schema = @Schema()) @RequestParam(value = "editorId", required = false, defaultValue = "ingestor") String editorId,
-			@RequestBody(required = false) String body) {
-
-		if (!isBodyValid(body) && (path == null || path.isBlank())) {
-			return ResponseEntity
-					.status(HttpStatus.BAD_REQUEST)
-					.contentType(MediaType.APPLICATION_JSON)
-					.body(new IngestionResult("ERROR",
-							"Request parameter 'path' cannot be blank and the request body must be valid.", path,
-							new HashMap<>()));
-		}
-
+	/**
+	 * @param metadataGroup URL encoded group name, "*" for all groups, ALL when empty
+	 * @return the groups the ingested elements are added to
+	 */
+	static List<Group> resolveGroups(String metadataGroup) {
 		if (metadataGroup == null || metadataGroup.isEmpty()) {
 			metadataGroup = "ALL";
 		}
 
-		try {
-			metadataGroup = URLDecoder.decode(metadataGroup, StandardCharsets.UTF_8.name());
-			LOGGER.info("[Debugging] Decoded GROUP NAME: "+metadataGroup);
-		} catch (UnsupportedEncodingException e) {
-			LOGGER.error("[CRITICAL ERROR] Error decoding GROUP NAME {}", e.getLocalizedMessage());
-			IngestionResult result = new IngestionResult("ERROR", e.getLocalizedMessage(), path, new HashMap<>());
-			return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(result);
-		}
+		metadataGroup = URLDecoder.decode(metadataGroup, StandardCharsets.UTF_8);
+		LOGGER.info("[Debugging] Decoded GROUP NAME: "+metadataGroup);
 
 		List<Group> selectedGroup = new ArrayList<>();
 
@@ -84,50 +71,146 @@ public class MetadataPopulationApiController implements MetadataPopulationApi {
 		if (selectedGroup.isEmpty()) {
 			selectedGroup.add(UserGroupManagementAPI.retrieveGroupByName("ALL"));
 		}
+		return selectedGroup;
+	}
 
-		LOGGER.info("[Debugging] Selected GROUPS: "+selectedGroup);
+	/**
+	 * @param path URL of a file listing one metadata file URL per line
+	 * @return the listed URLs, blank lines skipped
+	 */
+	static List<String> readUrlList(String path) throws IOException {
+		List<String> urls = new ArrayList<>();
+		try (SourceFetcher.Resource list = SourceFetcher.get().open(path); Scanner s = new Scanner(list.content(), StandardCharsets.UTF_8)) {
+			while (s.hasNextLine()) {
+				String urlsingle = s.nextLine().trim();
+				if (!urlsingle.isEmpty()) urls.add(urlsingle);
+			}
+		}
+		return urls;
+	}
+
+	public ResponseEntity<IngestionResult> metadataPopulate(
+			@Parameter(in = ParameterIn.QUERY, description = "population type (single file or multiple lines file)", required = true, schema = @Schema(allowableValues = {
+					"single", "multiple" })) @RequestParam(value = "type", required = true) String type,
+			@Parameter(in = ParameterIn.QUERY, description = "path of the file to use", required = false, schema = @Schema()) @RequestParam(value = "path", required = false) String path,
+			@Parameter(in = ParameterIn.QUERY, description = "metadata model", required = true, schema = @Schema()) @RequestParam(value = "model", required = true) String model,
+			@Parameter(in = ParameterIn.QUERY, description = "metadata mapping model", required = true, schema = @Schema()) @RequestParam(value = "mapping", required = true) String mapping,
+			@Parameter(in = ParameterIn.QUERY, description = "metadata group where the resource should be placed", required = false, schema = @Schema()) @RequestParam(value = "metadataGroup", required = false) String metadataGroup,
+			@Parameter(in = ParameterIn.QUERY, description = "status to ingest the file as", required = false, schema = @Schema()) @RequestParam(value = "status", required = false, defaultValue = "PUBLISHED") StatusType status,
+			@Parameter(in = ParameterIn.QUERY, description = "editor id for the ingested entities", required = false, schema = @Schema()) @RequestParam(value = "editorId", required = false, defaultValue = "ingestor") String editorId,
+			HttpServletRequest request) {
 
 		boolean multiline = type.equals("single") ? false : true;
+		boolean fromBody = path == null || path.isBlank();
+
+		if (fromBody && multiline) {
+			return badRequest(path);
+		}
+
+		List<Group> selectedGroup = resolveGroups(metadataGroup);
+
+		LOGGER.info("[Debugging] Selected GROUPS: "+selectedGroup);
+
 		Map<String, LinkedEntity> finalIngestionResult = new HashMap<>();
 
+		if (fromBody) {
+			List<MultipleFileIngestion.FileResult> results = new ArrayList<>();
+			SharedEntityRegistry registry = new SharedEntityRegistry();
+			try {
+				readPayload(request, (name, contentType, content) -> results.add(
+						MultipleFileIngestion.ingestDocument(name, contentType, content, mapping, selectedGroup, status, editorId, IngestionListener.NONE, registry)));
+			} catch (IOException | IllegalArgumentException e) {
+				return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+						.body(new IngestionResult("ERROR", e.getLocalizedMessage(), path, MultipleFileIngestion.merge(results)));
+			}
+			if (results.isEmpty()) {
+				return badRequest(path);
+			}
+			return toResponse(MetadataPopulator.CONTENT_SOURCE, results);
+		}
+
 		if (multiline) {
-			URL urlMultiline = null;
+			List<String> urls;
 			try {
-				urlMultiline = new URL(path);
-				Scanner s = new Scanner(urlMultiline.openStream());
-				while (s.hasNextLine()) {
-					String urlsingle = s.nextLine();
-					LOGGER.info("[Ingestion initialized] Ingesting file {} using mapping {} in the group {}", urlsingle,
-							mapping, selectedGroup);
-					Map<String, LinkedEntity> result;
-					if ((path == null || path.isBlank()) && isBodyValid(body)) {
-						result = MetadataPopulator.startMetadataPopulationFromContent(body, mapping, selectedGroup,
-								status, editorId);
-					} else {
-						result = MetadataPopulator.startMetadataPopulation(urlsingle, mapping, selectedGroup, status, editorId);
-					}
-					finalIngestionResult.putAll(result);
-					LOGGER.info("[Ingestion finished] Ingested file {}", urlsingle);
-				}
-				s.close();
+				urls = readUrlList(path);
 			} catch (IOException e) {
 				return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
 						.body(new IngestionResult("ERROR", e.getLocalizedMessage(), path, finalIngestionResult));
 			}
 
+			return toResponse(path, MultipleFileIngestion.ingest(urls, mapping, selectedGroup, status, editorId, IngestionListener.NONE));
+
 		} else {
 			LOGGER.info("[Ingestion initialized] Ingesting file {} using mapping {} in the group {}", path, mapping,
 					selectedGroup);
-			if ((path == null || path.isBlank()) && isBodyValid(body)) {
-				finalIngestionResult = MetadataPopulator.startMetadataPopulationFromContent(body, mapping,
-						selectedGroup, status, editorId);
-			} else {
-				finalIngestionResult = MetadataPopulator.startMetadataPopulation(path, mapping, selectedGroup, status, editorId);
-			}
+			finalIngestionResult = MetadataPopulator.startMetadataPopulation(path, mapping, selectedGroup, status, editorId);
 			LOGGER.info("[Ingestion finished] Ingested file {}", path);
 		}
 
 		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
 				.body(new IngestionResult("SUCCESS", "DONE, correcly ingested " + path, path, finalIngestionResult));
 	}
+
+	private static ResponseEntity<IngestionResult> badRequest(String path) {
+		return ResponseEntity
+				.status(HttpStatus.BAD_REQUEST)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(new IngestionResult("ERROR",
+						"Request parameter 'path' cannot be blank and the request body must be valid.", path,
+						new HashMap<>()));
+	}
+
+	/** SUCCESS when every file was ingested, PARTIAL listing the failed ones, ERROR when none was ingested **/
+	private static ResponseEntity<IngestionResult> toResponse(String path, List<MultipleFileIngestion.FileResult> results) {
+		Map<String, LinkedEntity> finalIngestionResult = MultipleFileIngestion.merge(results);
+		List<String> failures = results.stream()
+				.filter(MultipleFileIngestion.FileResult::isFailed)
+				.map(result -> result.url() + ": " + result.error())
+				.toList();
+		if (!results.isEmpty() && failures.size() == results.size()) {
+			/** a single document reports its own error, with the status its failure always had **/
+			String message = results.size() == 1 ? results.get(0).error()
+					: "No file of " + path + " was ingested, failed: " + String.join("; ", failures);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON)
+					.body(new IngestionResult("ERROR", message, path, finalIngestionResult));
+		}
+		if (!failures.isEmpty()) {
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+					.body(new IngestionResult("PARTIAL", "Ingested " + (results.size() - failures.size()) + "/" + results.size()
+							+ " files of " + path + ", failed: " + String.join("; ", failures), path, finalIngestionResult));
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+				.body(new IngestionResult("SUCCESS", "DONE, correcly ingested " + path, path, finalIngestionResult));
+	}
+
+	/**
+	 * Streams the documents of the request body to the handler: a plain, compressed (Content-Encoding gzip/zstd)
+	 * or archived (zip/tar) body, or the uploaded files of a multipart request, read part by part from the
+	 * request stream. An empty body, or an empty JSON object, carries no document.
+	 */
+	static void readPayload(HttpServletRequest request, IngestionPayload.DocumentHandler handler) throws IOException {
+		if (JakartaServletFileUpload.isMultipartContent(request)) {
+			FileItemInputIterator items = new JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory>().getItemIterator(request);
+			while (items.hasNext()) {
+				FileItemInput item = items.next();
+				if (item.isFormField() || item.getName() == null) continue;
+				try (InputStream content = item.getInputStream()) {
+					IngestionPayload.readDocuments(content, item.getHeaders().getHeader("Content-Encoding"), item.getContentType(), item.getName(), handler);
+				}
+			}
+		} else {
+			BufferedInputStream body = new BufferedInputStream(request.getInputStream(), 65536);
+			if (isEmptyObject(body)) return;
+			IngestionPayload.readDocuments(body, request.getHeader("Content-Encoding"), request.getContentType(),
+					MetadataPopulator.CONTENT_SOURCE, handler);
+		}
+	}
+
+	/** @return true when the whole body is "{}", left unread otherwise **/
+	private static boolean isEmptyObject(BufferedInputStream body) throws IOException {
+		body.mark(EMPTY_OBJECT_PEEK);
+		byte[] head = body.readNBytes(EMPTY_OBJECT_PEEK);
+		body.reset();
+		return head.length < EMPTY_OBJECT_PEEK && new String(head, StandardCharsets.UTF_8).strip().equals("{}");
+	}
 }
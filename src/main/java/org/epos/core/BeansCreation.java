@@ -1,15 +1,18 @@
 package org.epos.core;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.apache.jena.datatypes.BaseDatatype;
+import org.apache.jena.datatypes.xsd.XSDDateTime;
 import org.epos.eposdatamodel.EPOSDataModelEntity;
 import org.epos.eposdatamodel.Group;
 import org.epos.eposdatamodel.LinkedEntity;
@@ -22,115 +25,67 @@ public class BeansCreation <T extends EPOSDataModelEntity> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BeansCreation.class);
 
+    private record AccessorKey(Class<?> entityClass, String propertyName, Class<?> valueClass) {}
+
+    private record LiteralCoercion(Class<?> targetClass, Function<Object, Object> convert) {}
+
+    /** add/set accessors already resolved, Optional.empty() when the entity has none for the value type **/
+    private static final Map<AccessorKey, Optional<MethodHandle>> ACCESSORS = new ConcurrentHashMap<>();
+
+    /** literal value class -> accessor parameter type and conversion **/
+    private static final Map<Class<?>, LiteralCoercion> LITERAL_COERCIONS = Map.of(
+            XSDDateTime.class, new LiteralCoercion(LocalDateTime.class, BeansCreation::parseDateTime),
+            Boolean.class, new LiteralCoercion(String.class, Object::toString),
+            Double.class, new LiteralCoercion(String.class, Object::toString),
+            Integer.class, new LiteralCoercion(String.class, Object::toString),
+            Float.class, new LiteralCoercion(String.class, Object::toString),
+            Long.class, new LiteralCoercion(String.class, Object::toString),
+            BaseDatatype.TypedValue.class, new LiteralCoercion(String.class, value -> ((BaseDatatype.TypedValue) value).lexicalValue));
+
     public T getEPOSDataModelClass(String className, String uid, List<Group> selectedGroup, String editorId){
         try {
-            Class clazz = Class.forName("org.epos.eposdatamodel."+className);
-            Constructor[] ctor = clazz.getConstructors();
-            T object = (T) ctor[0].newInstance();
+            T object = (T) EntityFactoryRegistry.create(className);
+            if (object == null) return null;
             object.setUid(uid);
             object.setEditorId(editorId);
             object.setFileProvenance("ingestor");
             object.setStatus(StatusType.PUBLISHED);
 
             return object;
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException |
-                 InvocationTargetException e) {
+        } catch (IllegalStateException e) {
             //LOGGER.error(e.getLocalizedMessage());
             return null;
         }
     }
 
-    public void getEPOSDataModelPropertiesLiteral(EPOSDataModelEntity classObject, List<EPOSDataModelEntity> classes, Map<String, String> property, Object propertyValue) {
+    public void getEPOSDataModelPropertiesLiteral(EPOSDataModelEntity classObject, IngestionContext context, Map<String, String> property, Object propertyValue) {
         Class<?> propertyValueClass = propertyValue.getClass();
-        String propertyName = property.get("property").substring(0, 1).toUpperCase() + property.get("property").substring(1);
-        //System.out.println("PRE DEBUG LITERAL: " + classObject.getClass().getName() + " " + propertyValueClass + " " + propertyValue.getClass() + " " + propertyName+" "+propertyValue);
+        //System.out.println("PRE DEBUG LITERAL: " + classObject.getClass().getName() + " " + propertyValueClass + " " + propertyValue.getClass() + " " + property.get("property")+" "+propertyValue);
 
-        Method method = null;
-        LinkedEntity le = null;
-        EPOSDataModelEntity entity = null;
-
-        if (propertyValueClass.getName().equals("org.apache.jena.datatypes.xsd.XSDDateTime")) {
-            propertyValueClass = LocalDateTime.class;
-            try {
-                propertyValue = ParseLocalDateTime.parse((String) propertyValue);//LocalDateTime.parse((String)propertyValue,  DateTimeFormatter.ofPattern("yyyy-MM-dd['T'HH:mm:ss'Z']"));
-                //System.out.println("DATE: "+propertyValue);
-
-            } catch (DateTimeParseException ignored) {
-                //LOGGER.error(ignored.getLocalizedMessage());
-            }
-        }
-        if (propertyValueClass.getName().equals("java.lang.Boolean")) {
-            propertyValueClass = java.lang.String.class;
-            propertyValue = Boolean.toString((Boolean)propertyValue);
-        }
-        if (propertyValueClass.getName().equals("java.lang.Double")) {
-            propertyValueClass = java.lang.String.class;
-            propertyValue = Double.toString((Double) propertyValue);
-        }
-        if (propertyValueClass.getName().equals("java.lang.Integer")) {
-            propertyValueClass = java.lang.String.class;
-            propertyValue = Integer.toString((Integer) propertyValue);
-        }
-        if (propertyValueClass.getName().equals("java.lang.Float")) {
-            propertyValueClass = java.lang.String.class;
-            propertyValue = Float.toString((Float) propertyValue);
-        }
-        if (propertyValueClass.getName().equals("java.lang.Long")) {
-            propertyValueClass = java.lang.String.class;
-            propertyValue = Long.toString((Long) propertyValue);
-        }
-        if (propertyValue.getClass().getName().contains("org.apache.jena.datatypes.BaseDatatype")) {
-            propertyValueClass = java.lang.String.class;
-            propertyValue = ((BaseDatatype.TypedValue) propertyValue).lexicalValue;
-        }
-        try {
-            method = classObject.getClass().getMethod("add" + propertyName, propertyValueClass);
-        } catch (NoSuchMethodException e) {
-            //LOGGER.error(e.getLocalizedMessage());
+        LiteralCoercion coercion = LITERAL_COERCIONS.get(propertyValueClass);
+        if (coercion != null) {
+            propertyValueClass = coercion.targetClass();
+            propertyValue = coercion.convert().apply(propertyValue);
         }
 
-        if (method == null) {
-            try {
-                method = classObject.getClass().getMethod("set" + propertyName, propertyValueClass);
-            } catch (NoSuchMethodException e) {
-                //LOGGER.error(e.getLocalizedMessage());
-            }
-        }
+        MethodHandle accessor = findAccessor(classObject.getClass(), property.get("property"), propertyValueClass);
 
-        //System.out.println("METHOD: "+method);
+        //System.out.println("METHOD: "+accessor);
 
-        if(method != null && propertyValue != null){
-            try {
-                //System.out.println("Invoking: "+propertyName+" "+propertyValue);
-                method.invoke(classObject, propertyValue);
-            } catch (IllegalArgumentException |IllegalAccessException | InvocationTargetException e) {
-                /*LOGGER.error("ERROR Invoking [\nProperty Name: " + propertyName +
-                        "\nPropertyValue: " + propertyValue +
-                        "\nPropertyClass: " + propertyValueClass +
-                        "\nClass Name:" + classObject.getClass().getName() +
-                        "\nMethod Name:" + method.getName() +
-                        "\nExpected Parameters: " + Arrays.asList(method.getParameterTypes()).toString() + "\n]"+
-                        "\nError message: " + e.getLocalizedMessage());*/
-            }
+        if(accessor != null && propertyValue != null){
+            //System.out.println("Invoking: "+property.get("property")+" "+propertyValue);
+            Object value = propertyValue;
+            Invocations.invoke(() -> accessor.invoke(classObject, value), e -> skipped(classObject, property, e),
+                    "Setter of " + property.get("property"));
         }
     }
 
-    public void getEPOSDataModelPropertiesNode(EPOSDataModelEntity classObject, List<EPOSDataModelEntity> classes, Map<String, String> property, String propertyValue, List<Group> selectedGroup, String editorId) {
+    public void getEPOSDataModelPropertiesNode(EPOSDataModelEntity classObject, IngestionContext context, Map<String, String> property, String propertyValue, List<Group> selectedGroup, String editorId) {
 
-        Class<?> propertyValueClass = propertyValue.getClass();
-        String propertyName = property.get("property").substring(0, 1).toUpperCase() + property.get("property").substring(1);
-        //System.out.println("PRE DEBUG NODE: " + property.get("range") +" " + propertyValueClass + " " + propertyValue.getClass() + " " + propertyName + " "+ propertyValue);
+        //System.out.println("PRE DEBUG NODE: " + property.get("range") +" " + propertyValue + " " + property.get("property"));
 
-        Method method = null;
         LinkedEntity le = null;
-        EPOSDataModelEntity entity = null;
-
-        for (EPOSDataModelEntity eposDataModelEntity : classes) {
-            if (eposDataModelEntity != null && eposDataModelEntity.getUid().equals(propertyValue)) {
-                entity = eposDataModelEntity;
-                break;
-            }
-        }
+        EPOSDataModelEntity entity = context.get(propertyValue);
 
         if(entity==null){
             entity = getEPOSDataModelClass(property.get("range"),propertyValue, selectedGroup, editorId);
@@ -141,42 +96,64 @@ public class BeansCreation <T extends EPOSDataModelEntity> {
                 le = new LinkedEntity();
                 le.setUid(entity.getUid());
                 le.setEntityType(entity.getClass().getSimpleName().toUpperCase());
+                if (context.isStreaming() && context.get(entity.getUid()) == null) context.deferLink(le);
             } catch (Exception skip) {
                 // LOGGER.error(skip.getLocalizedMessage());
             }
-            propertyValueClass = LinkedEntity.class;
-
-            try {
-                method = classObject.getClass().getMethod("add" + propertyName, propertyValueClass);
-            } catch (NoSuchMethodException e) {
-                //LOGGER.error(e.getLocalizedMessage());
-            }
 
-            if (method == null) {
-                try {
-                    method = classObject.getClass().getMethod("set" + propertyName, propertyValueClass);
-                } catch (NoSuchMethodException e) {
-                    //LOGGER.error(e.getLocalizedMessage());
-                }
-            }
+            MethodHandle accessor = findAccessor(classObject.getClass(), property.get("property"), LinkedEntity.class);
 
-            if(method == null && le!=null && property.get("range").equals("string")){
+            if(accessor == null && le!=null && property.get("range").equals("string")){
                     propertyValue = le.getUid();
-                    getEPOSDataModelPropertiesLiteral(classObject,classes,property,propertyValue);
+                    getEPOSDataModelPropertiesLiteral(classObject,context,property,propertyValue);
+            }
+            if (accessor != null) {
+                LinkedEntity link = le;
+                Invocations.invoke(() -> accessor.invoke(classObject, link), e -> skipped(classObject, property, e),
+                        "Setter of " + property.get("property"));
             }
-            if (method != null) {
-                try {
-                    method.invoke(classObject, le);
-                } catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
-                    /*LOGGER.error("ERROR Invoking [\nProperty Name: " + propertyName +
-                            "\nPropertyValue: " + propertyValue +
-                            "\nPropertyClass: " + propertyValueClass +
-                            "\nClass Name:" + classObject.getClass().getName() +
-                            "\nMethod Name:" + method.getName() +
-                            "\nExpected Parameters: " + Arrays.asList(method.getParameterTypes()).toString() + "\n]"+
-                            "\n Error message: " + e.getLocalizedMessage());*/
-                }
+        }
+    }
+
+    /** A setter rejecting the mapped value leaves the property unset **/
+    private static Object skipped(EPOSDataModelEntity classObject, Map<String, String> property, RuntimeException e) {
+        LOGGER.debug("Setter of {} on {} skipped: {}", property.get("property"), classObject.getClass().getSimpleName(), e.getLocalizedMessage());
+        return null;
+    }
+
+    /**
+     * Returns the "add" accessor of the property, falling back to the "set" one, for the given value type.
+     * Lookups are resolved once per (entity class, property, value type); missing accessors are cached as well.
+     */
+    private static MethodHandle findAccessor(Class<?> entityClass, String propertyName, Class<?> valueClass) {
+        return ACCESSORS.computeIfAbsent(new AccessorKey(entityClass, propertyName, valueClass), key -> {
+            String capitalized = propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+            Method method = findMethod(entityClass, "add" + capitalized, valueClass);
+            if (method == null) method = findMethod(entityClass, "set" + capitalized, valueClass);
+            if (method == null) return Optional.empty();
+            try {
+                return Optional.of(MethodHandles.publicLookup().unreflect(method));
+            } catch (IllegalAccessException e) {
+                LOGGER.debug("Accessor {} of {} is not accessible", method.getName(), entityClass.getSimpleName());
+                return Optional.empty();
             }
+        }).orElse(null);
+    }
+
+    private static Method findMethod(Class<?> entityClass, String name, Class<?> valueClass) {
+        try {
+            return entityClass.getMethod(name, valueClass);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static LocalDateTime parseDateTime(Object value) {
+        try {
+            return ParseLocalDateTime.parse(value.toString());//LocalDateTime.parse((String)propertyValue,  DateTimeFormatter.ofPattern("yyyy-MM-dd['T'HH:mm:ss'Z']"));
+        } catch (DateTimeParseException ignored) {
+            //LOGGER.error(ignored.getLocalizedMessage());
+            return null;
         }
     }
 }
@@ -0,0 +1,286 @@
+package org.epos.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.epos.configuration.GsonLocalDateTime;
+import org.epos.core.export.ExportCache;
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.epos.eposdatamodel.Group;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import abstractapis.AbstractAPI;
+import model.StatusType;
+
+/**
+ * Differential re-ingestion.
+ * Every mapped entity gets a hash of its canonical content (properties sorted, values of multi-valued
+ * properties sorted, database identifiers and provenance left out). The hashes written for a source are
+ * kept in INGESTOR_CHANGE_DETECTION_DIR, one file per source, mapping and groups; on the next ingestion
+ * of the same source they are read at once and only new or changed entities are persisted. Entities
+ * that are no longer in the source are archived when INGESTOR_CHANGE_DETECTION_TOMBSTONE is set.
+ *
+ * Only sources named by a caller supplied http(s) or file URL are tracked: uploads, their spooled copies
+ * and archive entries have no name stable across requests.
+ *
+ * Entities created from blank nodes get a new UID on every parse, so they are never recorded nor archived:
+ * the content of a blank node is hashed into the entities linking to it, and it is written together with them,
+ * or skipped with them when they did not change. Their UIDs are replaced by a placeholder in the hashes.
+ */
+public class ChangeDetection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeDetection.class);
+
+    private static final String DIRECTORY = System.getenv("INGESTOR_CHANGE_DETECTION_DIR");
+
+    private static final boolean TOMBSTONE = Boolean.parseBoolean(System.getenv("INGESTOR_CHANGE_DETECTION_TOMBSTONE"));
+
+    /** Properties that change on every write without changing the metadata **/
+    private static final Set<String> VOLATILE_PROPERTIES = Set.of("instanceId", "metaId", "instanceChangedId",
+            "fileProvenance", "changeTimestamp", "changeComment", "version", "versionId");
+
+    private static final String BLANK_NODE_PREFIX = "_:";
+
+    /** stands for any blank node UID in the canonical form **/
+    private static final JsonPrimitive BLANK_NODE = new JsonPrimitive(BLANK_NODE_PREFIX);
+
+    private static final Gson GSON = new GsonBuilder()
+            .excludeFieldsWithModifiers(Modifier.STATIC, Modifier.TRANSIENT, Modifier.VOLATILE)
+            .registerTypeAdapter(LocalDateTime.class, new GsonLocalDateTime())
+            .create();
+
+    /** Hash and database identifiers of an entity as last written for a source **/
+    record Entry(String hash, String entityType, String instanceId, String metaId) {}
+
+    /**
+     * @return true when INGESTOR_CHANGE_DETECTION_DIR is set
+     */
+    public static boolean isEnabled() {
+        return DIRECTORY != null && !DIRECTORY.isBlank();
+    }
+
+    /**
+     * @param source        the URL of the ingested document, as given by the caller
+     * @param mappingModel  the mapping ontology used
+     * @param selectedGroup the groups the entities are added to, may be null
+     * @return the hashes stored for the source, null when change detection is disabled or the source
+     *         is not an http(s) or file URL
+     */
+    public static Snapshot open(String source, String mappingModel, List<Group> selectedGroup) {
+        if (!isEnabled() || !isTracked(source)) return null;
+        String groups = selectedGroup == null ? "" : selectedGroup.stream().filter(Objects::nonNull)
+                .map(Group::getId).sorted().collect(Collectors.joining(","));
+        String scope = DigestUtils.sha256Hex(source + "\n" + mappingModel + "\n" + groups);
+        try {
+            return Snapshot.load(Paths.get(DIRECTORY).resolve(scope + ".tsv"), source);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the stored hashes of {}, every entity is persisted: {}", source, e.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    private static boolean isTracked(String source) {
+        if (source == null) return false;
+        String lower = source.toLowerCase();
+        return lower.startsWith("http://") || lower.startsWith("https://") || lower.startsWith("file:");
+    }
+
+    /**
+     * @return true when the UID was generated for a blank node, it changes on every parse
+     */
+    public static boolean isBlankNode(String uid) {
+        return uid != null && uid.startsWith(BLANK_NODE_PREFIX);
+    }
+
+    /**
+     * @return the SHA-256 of the canonical JSON form of the entity, links to blank nodes are hashed as a placeholder
+     */
+    public static String hash(EPOSDataModelEntity entity) {
+        return hash(entity, uid -> null);
+    }
+
+    /**
+     * @param blankNodes the entities of the document by blank node UID, null for an unknown UID
+     * @return the SHA-256 of the canonical JSON form of the entity, in which every link to a blank node is
+     *         replaced by the canonical form of that blank node, so a change nested in it changes the hash
+     */
+    public static String hash(EPOSDataModelEntity entity, Function<String, EPOSDataModelEntity> blankNodes) {
+        Set<String> expanding = new HashSet<>();
+        if (entity.getUid() != null) expanding.add(entity.getUid());
+        return DigestUtils.sha256Hex(canonical(GSON.toJsonTree(entity), blankNodes, expanding).toString());
+    }
+
+    /** @param expanding the blank nodes being expanded, a cycle back to one of them is left as the placeholder **/
+    private static JsonElement canonical(JsonElement element, Function<String, EPOSDataModelEntity> blankNodes, Set<String> expanding) {
+        if (element.isJsonObject()) {
+            TreeMap<String, JsonElement> sorted = new TreeMap<>();
+            for (Map.Entry<String, JsonElement> property : element.getAsJsonObject().entrySet()) {
+                if (VOLATILE_PROPERTIES.contains(property.getKey()) || property.getValue().isJsonNull()) continue;
+                sorted.put(property.getKey(), canonical(property.getValue(), blankNodes, expanding));
+            }
+            JsonObject object = new JsonObject();
+            sorted.forEach(object::add);
+            return object;
+        }
+        if (element.isJsonArray()) {
+            /** the order of the values of a multi-valued property is not significant in RDF **/
+            List<JsonElement> values = new ArrayList<>();
+            element.getAsJsonArray().forEach(value -> values.add(canonical(value, blankNodes, expanding)));
+            values.sort(Comparator.comparing(JsonElement::toString));
+            JsonArray array = new JsonArray();
+            values.forEach(array::add);
+            return array;
+        }
+        if (element.isJsonPrimitive() && element.getAsJsonPrimitive().isString() && isBlankNode(element.getAsString())) {
+            String uid = element.getAsString();
+            EPOSDataModelEntity blankNode = expanding.contains(uid) ? null : blankNodes.apply(uid);
+            if (blankNode == null) return BLANK_NODE;
+            expanding.add(uid);
+            JsonElement content = canonical(GSON.toJsonTree(blankNode), blankNodes, expanding);
+            expanding.remove(uid);
+            return content;
+        }
+        return element;
+    }
+
+    /**
+     * The hashes of one source: those of the previous ingestion and those of the current one.
+     * Ingestions of different sources use different files and may run concurrently.
+     */
+    public static class Snapshot {
+
+        private final Path file;
+        private final String source;
+        private final Map<String, Entry> previous;
+        private final Map<String, Entry> current = new HashMap<>();
+        private final Set<String> seen = new HashSet<>();
+        private int unchanged;
+
+        private Snapshot(Path file, String source, Map<String, Entry> previous) {
+            this.file = file;
+            this.source = source;
+            this.previous = previous;
+        }
+
+        static Snapshot load(Path file, String source) throws IOException {
+            Map<String, Entry> previous = new HashMap<>();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    String[] fields = line.split("\t", -1);
+                    if (fields.length == 5) {
+                        previous.put(fields[0], new Entry(fields[1], fields[2], emptyToNull(fields[3]), emptyToNull(fields[4])));
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                LOGGER.debug("No stored hashes for {}", source);
+            }
+            return new Snapshot(file, source, previous);
+        }
+
+        /**
+         * @return the entity as already stored when its content did not change since the last ingestion,
+         *         null when it has to be persisted
+         */
+        public synchronized LinkedEntity unchanged(EPOSDataModelEntity entity, String hash) {
+            if (isBlankNode(entity.getUid())) return null;
+            seen.add(entity.getUid());
+            Entry entry = previous.get(entity.getUid());
+            if (entry == null || !entry.hash().equals(hash) || entry.instanceId() == null) return null;
+            current.put(entity.getUid(), entry);
+            unchanged++;
+            LinkedEntity le = new LinkedEntity();
+            le.setUid(entity.getUid());
+            le.setEntityType(entry.entityType());
+            le.setInstanceId(entry.instanceId());
+            le.setMetaId(entry.metaId());
+            return le;
+        }
+
+        /** Records the hash of an entity that was persisted **/
+        public synchronized void persisted(EPOSDataModelEntity entity, String hash, LinkedEntity le) {
+            if (isBlankNode(entity.getUid())) return;
+            String entityType = le.getEntityType() != null ? le.getEntityType() : entity.getClass().getSimpleName().toUpperCase();
+            current.put(entity.getUid(), new Entry(hash, entityType, le.getInstanceId(), le.getMetaId()));
+        }
+
+        /**
+         * Archives the entities of the previous ingestion that are no longer in the source, when enabled,
+         * and stores the hashes of this ingestion. Entities that failed to persist are not stored, so they
+         * are persisted again next time.
+         */
+        public synchronized void complete() {
+            List<String> removed = previous.keySet().stream()
+                    .filter(uid -> !seen.contains(uid) && !isBlankNode(uid))
+                    .collect(Collectors.toList());
+            LOGGER.info("{}: {} unchanged entities skipped, {} persisted, {} no longer in the source",
+                    source, unchanged, current.size() - unchanged, removed.size());
+            if (TOMBSTONE && !removed.isEmpty()) {
+                for (String uid : removed) archive(uid, previous.get(uid));
+                ExportCache.get().advance();
+            }
+            try {
+                Files.createDirectories(file.getParent());
+                Path temporary = Files.createTempFile(file.getParent(), "hashes", ".tmp");
+                try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, Entry> entry : current.entrySet()) {
+                        Entry value = entry.getValue();
+                        writer.write(String.join("\t", entry.getKey(), value.hash(), value.entityType(),
+                                Objects.toString(value.instanceId(), ""), Objects.toString(value.metaId(), "")));
+                        writer.newLine();
+                    }
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to store the hashes of {}, the next ingestion persists every entity: {}", source, e.getLocalizedMessage());
+            }
+        }
+
+        private static void archive(String uid, Entry entry) {
+            if (entry.instanceId() == null) return;
+            try {
+                AbstractAPI api = AbstractAPI.retrieveAPI(entry.entityType().toUpperCase());
+                EPOSDataModelEntity entity = (EPOSDataModelEntity) api.retrieve(entry.instanceId());
+                if (entity == null || StatusType.ARCHIVED.equals(entity.getStatus())) return;
+                entity.setStatus(StatusType.ARCHIVED);
+                api.create(entity, null, null, null);
+                LOGGER.debug("Archived {} removed from the source", uid);
+            } catch (Exception e) {
+                LOGGER.error("[ERROR] Archiving {} failed: {}", uid, e.getLocalizedMessage());
+            }
+        }
+
+        private static String emptyToNull(String value) {
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
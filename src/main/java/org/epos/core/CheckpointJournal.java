@@ -0,0 +1,165 @@
+package org.epos.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.epos.eposdatamodel.Group;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import model.StatusType;
+
+/**
+ * Checkpoint journal of a multi-file ingestion, kept in INGESTOR_CHECKPOINT_DIR.
+ * Every file ingested successfully is appended to the journal of the run (same file list, mapping,
+ * groups and status) with the SHA-256 of its content and its result. When a run is interrupted and
+ * started again, the files of the journal whose content did not change are not ingested again and
+ * their recorded result is returned. The journal is removed when a run completes, even with failed files,
+ * so only an interrupted run is resumed; the journal of a run never completed is ignored once it has not
+ * been written to for INGESTOR_CHECKPOINT_MAX_AGE_HOURS.
+ */
+public class CheckpointJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointJournal.class);
+
+    private static final String DIRECTORY = System.getenv("INGESTOR_CHECKPOINT_DIR");
+
+    private static final Duration MAX_AGE = Duration.ofHours(parseMaxAgeHours(System.getenv("INGESTOR_CHECKPOINT_MAX_AGE_HOURS")));
+
+    private static final Gson GSON = new Gson();
+
+    private static final Type RESULT_TYPE = new TypeToken<Map<String, LinkedEntity>>() {}.getType();
+
+    private record Checkpoint(String hash, Map<String, LinkedEntity> result) {}
+
+    private final Path file;
+    private final Map<String, Checkpoint> checkpoints;
+
+    private CheckpointJournal(Path file, Map<String, Checkpoint> checkpoints) {
+        this.file = file;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * @return the journal of the run, with the files completed by earlier attempts, null when
+     *         INGESTOR_CHECKPOINT_DIR is not set or the journal cannot be read
+     */
+    public static CheckpointJournal open(List<String> urls, String mappingModel, List<Group> selectedGroup, StatusType status) {
+        if (DIRECTORY == null || DIRECTORY.isBlank()) return null;
+        return open(Paths.get(DIRECTORY), MAX_AGE, urls, mappingModel, selectedGroup, status);
+    }
+
+    /**
+     * @param directory  the directory of the journals
+     * @param maxAge     time since the last write after which the journal of an interrupted run is ignored
+     * @return the journal of the run, with the files completed by earlier attempts, null when it cannot be read
+     */
+    public static CheckpointJournal open(Path directory, Duration maxAge, List<String> urls, String mappingModel, List<Group> selectedGroup, StatusType status) {
+        String groups = selectedGroup == null ? "" : selectedGroup.stream().filter(Objects::nonNull)
+                .map(Group::getId).sorted().collect(Collectors.joining(","));
+        String run = DigestUtils.sha256Hex(String.join("\n", urls) + "\n" + mappingModel + "\n" + groups + "\n" + status);
+        Path file = directory.resolve(run + ".journal");
+        if (isExpired(file, maxAge)) {
+            LOGGER.info("Ignoring the checkpoint journal {} older than {}, every file is ingested", file, maxAge);
+            new CheckpointJournal(file, Map.of()).delete();
+        }
+
+        Map<String, Checkpoint> checkpoints = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split("\t", 3);
+                /** a line cut by a crash is ignored, its file is ingested again **/
+                if (fields.length < 3) continue;
+                try {
+                    checkpoints.put(fields[0], new Checkpoint(fields[1], GSON.fromJson(fields[2], RESULT_TYPE)));
+                } catch (JsonParseException e) {
+                    LOGGER.debug("Ignoring an incomplete checkpoint of {}", fields[0]);
+                }
+            }
+            LOGGER.info("Resuming an interrupted ingestion, {} of {} files already ingested", checkpoints.size(), urls.size());
+        } catch (NoSuchFileException e) {
+            LOGGER.debug("No checkpoint journal for this run");
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the checkpoint journal {}, every file is ingested: {}", file, e.getLocalizedMessage());
+            return null;
+        }
+        return new CheckpointJournal(file, checkpoints);
+    }
+
+    /**
+     * @return the recorded result when the file was ingested by an earlier attempt and its content is
+     *         unchanged, null when it has to be ingested
+     */
+    public Map<String, LinkedEntity> resume(String url) {
+        Checkpoint checkpoint = checkpoints.get(url);
+        if (checkpoint == null) return null;
+        try (SourceFetcher.Resource resource = SourceFetcher.get().open(url)) {
+            if (checkpoint.hash().equals(DigestUtils.sha256Hex(resource.content()))) return checkpoint.result();
+            LOGGER.info("{} changed since it was ingested, ingesting it again", url);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Unable to verify the checkpoint of {}: {}", url, e.getLocalizedMessage());
+        }
+        return null;
+    }
+
+    /** Appends a successfully ingested file **/
+    public synchronized void completed(String url, String hash, Map<String, LinkedEntity> result) {
+        if (hash == null) return;
+        String line = url + "\t" + hash + "\t" + GSON.toJson(result, RESULT_TYPE) + "\n";
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to record the checkpoint of {}: {}", url, e.getLocalizedMessage());
+        }
+    }
+
+    private static boolean isExpired(Path file, Duration maxAge) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(Instant.now().minus(maxAge));
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            LOGGER.debug("Unable to read the age of the checkpoint journal {}: {}", file, e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /** Removes the journal of a run that completed **/
+    public synchronized void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the checkpoint journal {}: {}", file, e.getLocalizedMessage());
+        }
+    }
+
+    private static long parseMaxAgeHours(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid INGESTOR_CHECKPOINT_MAX_AGE_HOURS value {}, using the default", value);
+        }
+        return 24;
+    }
+}
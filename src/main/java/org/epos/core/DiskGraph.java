@@ -0,0 +1,84 @@
+package org.epos.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.jena.dboe.base.file.Location;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.system.Txn;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.sys.TDBInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk-backed graph of a metadata file, for files too large to be held in the heap.
+ * The file is loaded into a temporary TDB2 dataset under INGESTOR_DISK_GRAPH_DIR and the mapping runs
+ * on its default graph, inside a read transaction, exactly as on the in-memory model. The transaction
+ * ends and the dataset is removed as soon as the mapping returns, the entities are persisted afterwards.
+ */
+public class DiskGraph {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskGraph.class);
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getenv("INGESTOR_DISK_GRAPH"));
+
+    private static final String DIRECTORY = System.getenv("INGESTOR_DISK_GRAPH_DIR");
+
+    /**
+     * @return true when INGESTOR_DISK_GRAPH is set
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * @param parser  sends the triples of the file to the given sink
+     * @param work    runs on the model of the file, which is only valid during the call; its result must not
+     *                refer to the model, and it should not do slow work such as database writes
+     * @param source  the file name, for the logs
+     * @return the result of {@code work}
+     */
+    public static <T> T withModel(Consumer<StreamRDF> parser, Function<Model, T> work, String source) {
+        Path directory;
+        try {
+            Path parent = DIRECTORY == null || DIRECTORY.isBlank() ? Paths.get(System.getProperty("java.io.tmpdir")) : Paths.get(DIRECTORY);
+            Files.createDirectories(parent);
+            directory = Files.createTempDirectory(parent, "ingestion-graph");
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create the disk graph of " + source, e);
+        }
+
+        Dataset dataset = TDB2Factory.connectDataset(Location.create(directory));
+        try {
+            Txn.executeWrite(dataset, () -> parser.accept(RDFSyntax.toGraph(dataset.getDefaultModel().getGraph())));
+            LOGGER.debug("Loaded {} into the disk graph {}", source, directory);
+            return Txn.calculateRead(dataset, () -> work.apply(dataset.getDefaultModel()));
+        } finally {
+            TDBInternal.expel(dataset.asDatasetGraph());
+            delete(directory);
+        }
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to delete {}: {}", file, e.getLocalizedMessage());
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the disk graph {}: {}", directory, e.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.epos.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+
+/**
+ * Registry of EPOS Data Model constructors, keyed by simple class name (e.g. DataProduct).
+ * It is filled once from the org.epos.eposdatamodel package; names that do not resolve to an
+ * instantiable entity (e.g. literal ranges like "string") are cached as misses, so entity
+ * creation is a map lookup followed by a direct constructor call.
+ */
+public class EntityFactoryRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityFactoryRegistry.class);
+
+    private static final String EPOS_DATA_MODEL_PACKAGE = "org.epos.eposdatamodel";
+
+    private static final Map<String, Optional<Supplier<EPOSDataModelEntity>>> FACTORIES = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter(new AssignableTypeFilter(EPOSDataModelEntity.class));
+            for (BeanDefinition candidate : scanner.findCandidateComponents(EPOS_DATA_MODEL_PACKAGE)) {
+                Class<?> clazz = Class.forName(candidate.getBeanClassName());
+                FACTORIES.put(clazz.getSimpleName(), createFactory(clazz));
+            }
+            LOGGER.info("Registered {} EPOS Data Model entity factories", FACTORIES.size());
+        } catch (Exception | LinkageError e) {
+            LOGGER.warn("Unable to scan {}, entity factories will be resolved on demand: {}", EPOS_DATA_MODEL_PACKAGE, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @param className simple name of the EPOS Data Model class
+     * @return a new instance of the class, or null if the name is not an instantiable entity
+     */
+    public static EPOSDataModelEntity create(String className) {
+        if (className == null) return null;
+        return FACTORIES.computeIfAbsent(className, EntityFactoryRegistry::resolve)
+                .map(Supplier::get)
+                .orElse(null);
+    }
+
+    /** Fallback for classes the scan did not register, the result (hit or miss) is cached **/
+    private static Optional<Supplier<EPOSDataModelEntity>> resolve(String className) {
+        try {
+            return createFactory(Class.forName(EPOS_DATA_MODEL_PACKAGE + "." + className));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Supplier<EPOSDataModelEntity>> createFactory(Class<?> clazz) {
+        if (!EPOSDataModelEntity.class.isAssignableFrom(clazz) || clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+            return Optional.empty();
+        }
+        try {
+            MethodHandle constructor = MethodHandles.publicLookup()
+                    .findConstructor(clazz, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(EPOSDataModelEntity.class));
+            String member = "Constructor of " + clazz.getSimpleName();
+            return Optional.of(() -> Invocations.invoke(() -> (EPOSDataModelEntity) constructor.invokeExact(), e -> {
+                throw new IllegalStateException("Unable to instantiate " + clazz.getSimpleName(), e);
+            }, member));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
+    }
+}
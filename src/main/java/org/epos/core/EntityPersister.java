@@ -0,0 +1,394 @@
+package org.epos.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.epos.core.export.ExportCache;
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.epos.eposdatamodel.Group;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import abstractapis.AbstractAPI;
+import model.StatusType;
+import usermanagementapis.UserGroupManagementAPI;
+
+/**
+ * Persistence stage of the ingestion.
+ * The mapped entities of a file are sorted by their references into levels, referenced entities first,
+ * and written level by level, grouped by type. Entities taking part in a reference cycle are written last
+ * and rely on the deferred linking of the database API. The created elements are then assigned to the
+ * selected groups.
+ *
+ * Writes are sequential by default: the files ingested at the same time (type=multiple) are written one at a time,
+ * while their fetching, parsing and mapping overlap. INGESTOR_PERSISTENCE_THREADS above 1 lets them write together and
+ * writes each level on a bounded pool (one API per type and task); db-api does not document its DAO and entity manager as safe for concurrent
+ * writes, so it must only be raised once this has been verified against the deployed db-api version.
+ *
+ * Writes are not batched: db-api (an external dependency) opens and commits a transaction inside each
+ * {@code create} call and adds group members one element at a time, and it has no batch insert, bulk
+ * membership or caller-managed transaction. A failure therefore leaves the entities already written in place.
+ */
+public class EntityPersister {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityPersister.class);
+
+    /** Entity types shared between providers, always stored as PUBLISHED and skipped unless ingesting PUBLISHED **/
+    private static final Set<Class<? extends EPOSDataModelEntity>> SHARED_TYPES = Set.of(
+            org.epos.eposdatamodel.Category.class,
+            org.epos.eposdatamodel.CategoryScheme.class,
+            org.epos.eposdatamodel.Organization.class,
+            org.epos.eposdatamodel.ContactPoint.class,
+            org.epos.eposdatamodel.Person.class);
+
+    /** Number of concurrent writers shared by all ingestions, 1 (the default) writes sequentially **/
+    private static final int PERSISTENCE_THREADS = parseThreads(System.getenv("INGESTOR_PERSISTENCE_THREADS"));
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(PERSISTENCE_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "ingestion-persister");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Held by the file being written while writes are sequential **/
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
+
+    /**
+     * @param entities        the mapped entities of one file
+     * @param selectedGroup   the groups the created elements are added to, may be null
+     * @param status          the status to ingest as, null to keep the mapped one
+     * @param fileProvenance  the provenance stamp of this ingestion
+     * @return the created entities by UID
+     */
+    public static Map<String, LinkedEntity> persist(Collection<EPOSDataModelEntity> entities, List<Group> selectedGroup, StatusType status, String fileProvenance) {
+        return persist(entities, selectedGroup, status, fileProvenance, null, null);
+    }
+
+    /**
+     * @param snapshot  the hashes of the previous ingestion of the source, entities whose content did not
+     *                  change are not written again; null persists every entity
+     * @param registry  the shared entities already written by the other files of the run, null when the
+     *                  file is ingested on its own
+     * @see #persist(Collection, List, StatusType, String)
+     */
+    public static Map<String, LinkedEntity> persist(Collection<EPOSDataModelEntity> entities, List<Group> selectedGroup, StatusType status, String fileProvenance, ChangeDetection.Snapshot snapshot, SharedEntityRegistry registry) {
+        if (PERSISTENCE_THREADS > 1) return write(entities, selectedGroup, status, fileProvenance, snapshot, registry);
+        /** the shared entities a file claims are published before it releases the lock, so no file waits on one queued behind it **/
+        WRITE_LOCK.lock();
+        try {
+            return write(entities, selectedGroup, status, fileProvenance, snapshot, registry);
+        } finally {
+            WRITE_LOCK.unlock();
+        }
+    }
+
+    private static Map<String, LinkedEntity> write(Collection<EPOSDataModelEntity> entities, List<Group> selectedGroup, StatusType status, String fileProvenance, ChangeDetection.Snapshot snapshot, SharedEntityRegistry registry) {
+        Map<String, LinkedEntity> returnMap = new ConcurrentHashMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        Map<EPOSDataModelEntity, CompletableFuture<LinkedEntity>> reused = new LinkedHashMap<>();
+        List<EPOSDataModelEntity> claimed = new ArrayList<>();
+
+        /** PREPARE **/
+        List<EPOSDataModelEntity> toPersist = new ArrayList<>();
+        try {
+            List<EPOSDataModelEntity> candidates = new ArrayList<>();
+            Map<String, EPOSDataModelEntity> blankNodes = new HashMap<>();
+            for (EPOSDataModelEntity eposDataModelEntity : entities) {
+                if(status!=null) eposDataModelEntity.setStatus(status);
+                eposDataModelEntity.setFileProvenance(fileProvenance);
+                if (ChangeDetection.isBlankNode(eposDataModelEntity.getUid())) blankNodes.put(eposDataModelEntity.getUid(), eposDataModelEntity);
+                if (isSharedType(eposDataModelEntity)) {
+                    eposDataModelEntity.setStatus(StatusType.PUBLISHED);
+                    if (status != StatusType.PUBLISHED) {
+                        LOGGER.debug("Skipping ingestion cause of already PUBLISHED information  -> " + eposDataModelEntity);
+                        continue;
+                    }
+                }
+                candidates.add(eposDataModelEntity);
+            }
+
+            /** hashed once every status is set, the hash of an entity includes the blank nodes it links to **/
+            List<EPOSDataModelEntity> changed = new ArrayList<>();
+            for (EPOSDataModelEntity eposDataModelEntity : candidates) {
+                if (snapshot != null || (isSharedType(eposDataModelEntity) && registry != null)) {
+                    String hash = ChangeDetection.hash(eposDataModelEntity, blankNodes::get);
+                    hashes.put(eposDataModelEntity.getUid(), hash);
+                    LinkedEntity unchanged = snapshot == null ? null : snapshot.unchanged(eposDataModelEntity, hash);
+                    if (unchanged != null) {
+                        returnMap.put(unchanged.getUid(), unchanged);
+                        continue;
+                    }
+                }
+                changed.add(eposDataModelEntity);
+            }
+            if (snapshot != null) changed = withLinkedBlankNodes(changed, candidates);
+
+            for (EPOSDataModelEntity eposDataModelEntity : changed) {
+                if (isSharedType(eposDataModelEntity) && registry != null) {
+                    CompletableFuture<LinkedEntity> created = registry.claim(eposDataModelEntity, hashes.get(eposDataModelEntity.getUid()));
+                    if (created != null) {
+                        reused.put(eposDataModelEntity, created);
+                        continue;
+                    }
+                    claimed.add(eposDataModelEntity);
+                }
+                toPersist.add(eposDataModelEntity);
+            }
+
+            /** DATABASE POPULATION, LEVEL BY LEVEL **/
+            PersistencePlan plan = sortByReferences(toPersist);
+            for (List<EPOSDataModelEntity> level : plan.levels()) {
+                persistLevel(level, returnMap);
+            }
+            if (!plan.cyclic().isEmpty()) {
+                LOGGER.debug("Ingesting {} entities with cyclic references sequentially", plan.cyclic().size());
+                persistSequentially(plan.cyclic(), returnMap);
+            }
+        } catch (RuntimeException | Error e) {
+            /** the files waiting for the claimed entities write their own copy instead **/
+            for (EPOSDataModelEntity entity : claimed) registry.failed(entity, hashes.get(entity.getUid()), e);
+            throw e;
+        } finally {
+            /** published before waiting for the other files, which may be waiting for these ones **/
+            for (EPOSDataModelEntity entity : claimed) {
+                registry.created(entity, hashes.get(entity.getUid()), returnMap.get(entity.getUid()));
+            }
+            /** the exports built so far no longer reflect the catalogue **/
+            if (!toPersist.isEmpty()) ExportCache.get().advance();
+        }
+
+        /** unchanged entities and the ones written by other files of the run are already in their groups **/
+        Set<String> skipped = new HashSet<>(returnMap.keySet());
+        toPersist.forEach(entity -> skipped.remove(entity.getUid()));
+        List<EPOSDataModelEntity> notCreated = new ArrayList<>();
+        for (Map.Entry<EPOSDataModelEntity, CompletableFuture<LinkedEntity>> entry : reused.entrySet()) {
+            LinkedEntity le = SharedEntityRegistry.await(entry.getValue());
+            if (le == null) {
+                notCreated.add(entry.getKey());
+                continue;
+            }
+            returnMap.put(le.getUid(), le);
+            skipped.add(le.getUid());
+        }
+        if (!reused.isEmpty()) {
+            LOGGER.debug("{} shared entities already written by other files of the run", reused.size() - notCreated.size());
+        }
+        if (!notCreated.isEmpty()) {
+            /** links to them from the entities written above are resolved by deferred linking, as for cycles **/
+            LOGGER.debug("Writing {} shared entities the other files of the run did not create", notCreated.size());
+            persistSequentially(notCreated, returnMap);
+            ExportCache.get().advance();
+        }
+
+        if (snapshot != null) {
+            List<EPOSDataModelEntity> written = new ArrayList<>(toPersist);
+            written.addAll(reused.keySet());
+            for (EPOSDataModelEntity entity : written) {
+                LinkedEntity le = returnMap.get(entity.getUid());
+                if (le != null) snapshot.persisted(entity, hashes.get(entity.getUid()), le);
+            }
+        }
+
+        /** GROUP ASSIGNMENT **/
+        if (selectedGroup != null) {
+            for (Group group : selectedGroup) {
+                if (group == null) continue;
+                for (LinkedEntity le : returnMap.values()) {
+                    if (skipped.contains(le.getUid())) continue;
+                    UserGroupManagementAPI.addMetadataElementToGroup(le.getMetaId(), group.getId());
+                }
+            }
+        }
+
+        return returnMap;
+    }
+
+    /**
+     * Blank nodes are written together with the entities linking to them: the ones only linked from unchanged
+     * entities, directly or through other blank nodes, are left out with them. Blank nodes nothing links to are kept.
+     *
+     * @param changed    the entities to write, blank nodes included
+     * @param candidates every entity of the file that may be written, changed or not
+     */
+    private static List<EPOSDataModelEntity> withLinkedBlankNodes(List<EPOSDataModelEntity> changed, List<EPOSDataModelEntity> candidates) {
+        Set<String> linked = new HashSet<>();
+        for (EPOSDataModelEntity entity : candidates) {
+            references(entity).stream().filter(uid -> !uid.equals(entity.getUid())).forEach(linked::add);
+        }
+        Map<String, EPOSDataModelEntity> blankNodes = new HashMap<>();
+        Set<String> written = new HashSet<>();
+        ArrayDeque<EPOSDataModelEntity> linking = new ArrayDeque<>();
+        for (EPOSDataModelEntity entity : changed) {
+            if (ChangeDetection.isBlankNode(entity.getUid()) && linked.contains(entity.getUid())) {
+                blankNodes.put(entity.getUid(), entity);
+            } else {
+                written.add(entity.getUid());
+                linking.add(entity);
+            }
+        }
+        while (!linking.isEmpty()) {
+            for (String uid : references(linking.poll())) {
+                EPOSDataModelEntity blankNode = blankNodes.get(uid);
+                if (blankNode != null && written.add(uid)) linking.add(blankNode);
+            }
+        }
+        List<EPOSDataModelEntity> kept = changed.stream().filter(entity -> written.contains(entity.getUid())).collect(Collectors.toList());
+        if (kept.size() < changed.size()) {
+            LOGGER.debug("{} blank nodes of unchanged entities skipped", changed.size() - kept.size());
+        }
+        return kept;
+    }
+
+    /**
+     * @param levels entities grouped so that every entity only references entities of previous levels
+     * @param cyclic entities left over because they take part in reference cycles
+     */
+    record PersistencePlan(List<List<EPOSDataModelEntity>> levels, List<EPOSDataModelEntity> cyclic) {}
+
+    static PersistencePlan sortByReferences(List<EPOSDataModelEntity> entities) {
+        Map<String, EPOSDataModelEntity> byUid = new LinkedHashMap<>();
+        for (EPOSDataModelEntity entity : entities) byUid.put(entity.getUid(), entity);
+
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (EPOSDataModelEntity entity : byUid.values()) {
+            Set<String> references = references(entity).stream()
+                    .filter(uid -> !uid.equals(entity.getUid()) && byUid.containsKey(uid))
+                    .collect(Collectors.toSet());
+            pending.put(entity.getUid(), references.size());
+            for (String reference : references) {
+                dependents.computeIfAbsent(reference, k -> new ArrayList<>()).add(entity.getUid());
+            }
+        }
+
+        List<List<EPOSDataModelEntity>> levels = new ArrayList<>();
+        ArrayDeque<String> ready = new ArrayDeque<>();
+        pending.forEach((uid, count) -> { if (count == 0) ready.add(uid); });
+        while (!ready.isEmpty()) {
+            List<EPOSDataModelEntity> level = new ArrayList<>();
+            ArrayDeque<String> next = new ArrayDeque<>();
+            for (String uid : ready) {
+                level.add(byUid.get(uid));
+                pending.remove(uid);
+                for (String dependent : dependents.getOrDefault(uid, List.of())) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) next.add(dependent);
+                }
+            }
+            levels.add(level);
+            ready.clear();
+            ready.addAll(next);
+        }
+
+        List<EPOSDataModelEntity> cyclic = pending.keySet().stream().map(byUid::get).collect(Collectors.toList());
+        if (!cyclic.isEmpty()) {
+            LOGGER.debug("{} entities are part of reference cycles, their links will be resolved by deferred linking", cyclic.size());
+        }
+        return new PersistencePlan(levels, cyclic);
+    }
+
+    private static void persistLevel(List<EPOSDataModelEntity> level, Map<String, LinkedEntity> returnMap) {
+        if (PERSISTENCE_THREADS == 1 || level.size() == 1) {
+            persistSequentially(level, returnMap);
+            return;
+        }
+
+        /** one task per type and chunk, each with its own API instance **/
+        List<Future<?>> tasks = new ArrayList<>();
+        Map<Class<?>, List<EPOSDataModelEntity>> byType = groupByType(level);
+        int chunkSize = Math.max(1, (level.size() + PERSISTENCE_THREADS - 1) / PERSISTENCE_THREADS);
+        for (List<EPOSDataModelEntity> typeEntities : byType.values()) {
+            for (int from = 0; from < typeEntities.size(); from += chunkSize) {
+                List<EPOSDataModelEntity> chunk = typeEntities.subList(from, Math.min(from + chunkSize, typeEntities.size()));
+                tasks.add(EXECUTOR.submit(() -> persistSequentially(chunk, returnMap)));
+            }
+        }
+        /** every task is awaited before failing, none keeps writing once the file is reported **/
+        IllegalStateException failure = null;
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while persisting ingested entities", e);
+            } catch (ExecutionException e) {
+                LOGGER.error("[ERROR] Persisting entities failed: {}", e.getCause().getLocalizedMessage());
+                if (failure == null) {
+                    failure = new IllegalStateException("Persisting ingested entities failed", e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    private static void persistSequentially(List<EPOSDataModelEntity> entities, Map<String, LinkedEntity> returnMap) {
+        for (Map.Entry<Class<?>, List<EPOSDataModelEntity>> typeEntities : groupByType(entities).entrySet()) {
+            AbstractAPI api = AbstractAPI.retrieveAPI(typeEntities.getKey().getSimpleName().toUpperCase());
+            LOGGER.debug("Ingesting {} entities of type {}", typeEntities.getValue().size(), typeEntities.getKey().getSimpleName());
+            for (EPOSDataModelEntity eposDataModelEntity : typeEntities.getValue()) {
+                LinkedEntity le = create(api, eposDataModelEntity);
+                if (le != null) returnMap.put(le.getUid(), le);
+            }
+        }
+    }
+
+    private static Map<Class<?>, List<EPOSDataModelEntity>> groupByType(List<EPOSDataModelEntity> entities) {
+        Map<Class<?>, List<EPOSDataModelEntity>> byType = new LinkedHashMap<>();
+        for (EPOSDataModelEntity entity : entities) {
+            byType.computeIfAbsent(entity.getClass(), k -> new ArrayList<>()).add(entity);
+        }
+        return byType;
+    }
+
+    static LinkedEntity create(AbstractAPI api, EPOSDataModelEntity eposDataModelEntity) {
+        try {
+            LOGGER.debug("Ingesting -> " + eposDataModelEntity);
+            return api.create(eposDataModelEntity, null, null, null);
+        } catch (Exception apiCreationException) {
+            apiCreationException.printStackTrace();
+            LOGGER.error("[ERROR] ON: " + eposDataModelEntity.toString() + "\n[EXCEPTION]: "
+                    + apiCreationException.getLocalizedMessage());
+            return null;
+        }
+    }
+
+    static boolean isSharedType(EPOSDataModelEntity eposDataModelEntity) {
+        return SHARED_TYPES.stream().anyMatch(type -> type.isInstance(eposDataModelEntity));
+    }
+
+    /** UIDs of the entities referenced through LinkedEntity properties **/
+    private static Set<String> references(EPOSDataModelEntity entity) {
+        Set<String> references = new LinkedHashSet<>();
+        LinkSchema.forEachLink(entity, linkedEntity -> {
+            if (linkedEntity.getUid() != null) references.add(linkedEntity.getUid());
+        });
+        return references;
+    }
+
+    private static int parseThreads(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid INGESTOR_PERSISTENCE_THREADS value {}, using the default", value);
+        }
+        return 1;
+    }
+}
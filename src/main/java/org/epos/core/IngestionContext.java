@@ -0,0 +1,132 @@
+package org.epos.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.epos.eposdatamodel.LinkedEntity;
+
+/**
+ * Entities created while ingesting one metadata file, indexed by UID and by class,
+ * so that references between entities are resolved with a hash lookup instead of a scan.
+ * In streaming mode, links to UIDs not (yet) in the context are kept in a deferred-link table and get the
+ * type of the entity once it is added; entities drained for persistence leave their type behind for later links.
+ */
+public class IngestionContext {
+
+    private final boolean streaming;
+
+    private final Map<String, EPOSDataModelEntity> entitiesByUid = new LinkedHashMap<>();
+
+    private final Map<Class<?>, List<EPOSDataModelEntity>> entitiesByType = new HashMap<>();
+
+    private final Map<String, List<LinkedEntity>> deferredLinks = new HashMap<>();
+
+    private final Map<String, String> drainedTypes = new HashMap<>();
+
+    public IngestionContext() {
+        this(false);
+    }
+
+    /**
+     * @param streaming true when the entities are mapped and drained while the file is parsed
+     */
+    public IngestionContext(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * @return true when links to UIDs not in the context have to be deferred
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Adds the entity, replacing any entity previously registered with the same UID.
+     *
+     * @param entity the entity, ignored when null
+     */
+    public void add(EPOSDataModelEntity entity) {
+        if (entity == null) return;
+        EPOSDataModelEntity previous = entitiesByUid.put(entity.getUid(), entity);
+        if (previous != null) entitiesByType.get(previous.getClass()).remove(previous);
+        entitiesByType.computeIfAbsent(entity.getClass(), k -> new ArrayList<>()).add(entity);
+        List<LinkedEntity> links = deferredLinks.remove(entity.getUid());
+        if (links != null) {
+            String entityType = entity.getClass().getSimpleName().toUpperCase();
+            for (LinkedEntity link : links) link.setEntityType(entityType);
+        }
+    }
+
+    /**
+     * Registers a link to a UID that is not in the context, its type is corrected when the entity is added.
+     */
+    public void deferLink(LinkedEntity link) {
+        if (!streaming || link == null || link.getUid() == null) return;
+        String drainedType = drainedTypes.get(link.getUid());
+        if (drainedType != null) link.setEntityType(drainedType);
+        else deferredLinks.computeIfAbsent(link.getUid(), k -> new ArrayList<>()).add(link);
+    }
+
+    /**
+     * Removes the entities matching the filter, remembering their type for the links still to be created.
+     *
+     * @return the removed entities, in insertion order
+     */
+    public List<EPOSDataModelEntity> drain(Predicate<EPOSDataModelEntity> filter) {
+        List<EPOSDataModelEntity> drained = new ArrayList<>();
+        for (EPOSDataModelEntity entity : entitiesByUid.values()) {
+            if (filter.test(entity)) drained.add(entity);
+        }
+        for (EPOSDataModelEntity entity : drained) {
+            remove(entity);
+            drainedTypes.put(entity.getUid(), entity.getClass().getSimpleName().toUpperCase());
+        }
+        return drained;
+    }
+
+    /**
+     * @return true if an entity with the UID was drained from the context
+     */
+    public boolean isDrained(String uid) {
+        return drainedTypes.containsKey(uid);
+    }
+
+    public void remove(EPOSDataModelEntity entity) {
+        if (entity == null || entitiesByUid.get(entity.getUid()) != entity) return;
+        entitiesByUid.remove(entity.getUid());
+        entitiesByType.get(entity.getClass()).remove(entity);
+    }
+
+    public EPOSDataModelEntity get(String uid) {
+        return uid == null ? null : entitiesByUid.get(uid);
+    }
+
+    /**
+     * @param type the entity class
+     * @return the entities of exactly the given class, in insertion order
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends EPOSDataModelEntity> List<T> getAll(Class<T> type) {
+        List<EPOSDataModelEntity> entities = entitiesByType.get(type);
+        return entities == null ? Collections.emptyList() : (List<T>) Collections.unmodifiableList(entities);
+    }
+
+    /**
+     * @return all entities, in insertion order
+     */
+    public Collection<EPOSDataModelEntity> getEntities() {
+        return Collections.unmodifiableCollection(entitiesByUid.values());
+    }
+
+    public int size() {
+        return entitiesByUid.size();
+    }
+}
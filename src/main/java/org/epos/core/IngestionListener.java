@@ -0,0 +1,29 @@
+package org.epos.core;
+
+/**
+ * Receives the progress of an ingestion, file by file.
+ * Callbacks may be invoked concurrently when several files are ingested in parallel.
+ */
+public interface IngestionListener {
+
+    IngestionListener NONE = new IngestionListener() {};
+
+    default void phaseStarted(String source, IngestionPhase phase) {}
+
+    /**
+     * @param items the number of items produced by the phase (see {@link IngestionPhase})
+     */
+    default void phaseCompleted(String source, IngestionPhase phase, int items) {}
+
+    default void fileFailed(String source, String error) {}
+
+    /**
+     * Called once the whole content of a source has been read, before its result is returned.
+     *
+     * @param sha256 the hex SHA-256 of the content as parsed (after transfer decoding)
+     */
+    default void contentHashed(String source, String sha256) {}
+
+    /** The source was ingested by an earlier, interrupted run and has not changed since **/
+    default void fileSkipped(String source) {}
+}
@@ -0,0 +1,106 @@
+package org.epos.core;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+
+/**
+ * Splits an uploaded payload into the metadata documents it carries, without buffering it.
+ * The Content-Encoding (gzip, zstd) is decoded on the fly; zip and tar archives, as well as
+ * gzip or zstd compressed content, are recognised from their magic bytes and unpacked entry by
+ * entry, so every document is handed to the parser as a stream.
+ */
+public class IngestionPayload {
+
+    private static final int HEADER_SIZE = 512;
+
+    @FunctionalInterface
+    public interface DocumentHandler {
+        /**
+         * @param name        the document name (archive entry, uploaded file name or the given default)
+         * @param contentType the declared content type, null for archive entries
+         * @param content     the document content, valid until the method returns; closing it has no effect
+         */
+        void accept(String name, String contentType, InputStream content) throws IOException;
+    }
+
+    /**
+     * @param payload          the raw payload
+     * @param contentEncoding  the Content-Encoding header, may be null
+     * @param contentType      the Content-Type header, may be null
+     * @param name             the name reported for a payload that is not an archive
+     * @param handler          receives each document, in payload order
+     * @throws IllegalArgumentException when the content encoding is not supported
+     */
+    public static void readDocuments(InputStream payload, String contentEncoding, String contentType, String name, DocumentHandler handler) throws IOException {
+        readDocument(name, contentType, decode(payload, contentEncoding), handler);
+    }
+
+    /** Codings are listed in the order they were applied, so they are removed from the last one **/
+    static InputStream decode(InputStream payload, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank()) return payload;
+        String[] codings = contentEncoding.split(",");
+        InputStream decoded = payload;
+        for (int i = codings.length - 1; i >= 0; i--) {
+            String coding = codings[i].trim().toLowerCase();
+            switch (coding) {
+                case "gzip", "x-gzip" -> decoded = new GZIPInputStream(decoded, 65536);
+                case "zstd" -> decoded = new ZstdCompressorInputStream(decoded);
+                case "identity", "" -> { }
+                default -> throw new IllegalArgumentException("Unsupported Content-Encoding " + coding);
+            }
+        }
+        return decoded;
+    }
+
+    private static void readDocument(String name, String contentType, InputStream content, DocumentHandler handler) throws IOException {
+        BufferedInputStream in = content instanceof BufferedInputStream buffered ? buffered : new BufferedInputStream(content, 65536);
+        in.mark(HEADER_SIZE);
+        byte[] header = in.readNBytes(HEADER_SIZE);
+        in.reset();
+
+        if (startsWith(header, 0x50, 0x4B, 0x03, 0x04)) {
+            ZipInputStream zip = new ZipInputStream(in);
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (!entry.isDirectory()) readDocument(entry.getName(), null, unclosable(zip), handler);
+            }
+        } else if (header.length > 262 && new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            TarArchiveInputStream tar = new TarArchiveInputStream(in);
+            for (TarArchiveEntry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                if (entry.isFile()) readDocument(entry.getName(), null, unclosable(tar), handler);
+            }
+        } else if (startsWith(header, 0x1F, 0x8B)) {
+            readDocument(name, contentType, new GZIPInputStream(in, 65536), handler);
+        } else if (startsWith(header, 0x28, 0xB5, 0x2F, 0xFD)) {
+            readDocument(name, contentType, new ZstdCompressorInputStream(in), handler);
+        } else if (header.length > 0) {
+            handler.accept(name, contentType, unclosable(in));
+        }
+    }
+
+    private static boolean startsWith(byte[] header, int... magic) {
+        if (header.length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) return false;
+        }
+        return true;
+    }
+
+    /** Archive entries share the archive stream, the parser must not close it **/
+    private static InputStream unclosable(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
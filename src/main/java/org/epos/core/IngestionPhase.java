@@ -0,0 +1,15 @@
+package org.epos.core;
+
+/**
+ * Phases a metadata file goes through while being ingested.
+ */
+public enum IngestionPhase {
+    /** the source is opened (remote connection or local file), no items **/
+    FETCH,
+    /** the source is parsed into a model, items are triples **/
+    PARSE,
+    /** the model is mapped to EPOS Data Model entities, items are entities **/
+    MAP,
+    /** the entities are written to the database, items are created entities **/
+    PERSIST
+}
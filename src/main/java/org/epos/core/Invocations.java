@@ -0,0 +1,35 @@
+package org.epos.core;
+
+import java.util.function.Function;
+
+/**
+ * Calls through the method handles of the EPOS Data Model classes. A handle call declares Throwable:
+ * errors are propagated, runtime exceptions thrown by the called member are given to the caller's handler
+ * and checked ones are wrapped in an IllegalStateException.
+ */
+final class Invocations {
+
+    @FunctionalInterface
+    interface Invocation<T> {
+        T invoke() throws Throwable;
+    }
+
+    private Invocations() {
+    }
+
+    /**
+     * @param onRuntimeException the result of a call that threw a runtime exception, it may rethrow it
+     * @param member             the called member, for the message of a wrapped checked exception
+     */
+    static <T> T invoke(Invocation<T> invocation, Function<RuntimeException, T> onRuntimeException, String member) {
+        try {
+            return invocation.invoke();
+        } catch (RuntimeException e) {
+            return onRuntimeException.apply(e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(member + " failed", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.epos.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Shortens IRIs to their prefixed form (e.g. http://www.w3.org/ns/dcat#Dataset to dcat:Dataset)
+ * using the longest matching namespace.
+ * The namespace table is sorted once when the compactor is built, so that callers do not loop over the
+ * prefix map (and compile a regex per prefix) for every IRI.
+ */
+public class IriCompactor {
+
+    private final List<Map.Entry<String, String>> namespaces = new ArrayList<>();
+
+    /**
+     * @param prefixes prefix -> namespace, as returned by {@code PrefixMapping.getNsPrefixMap()}
+     */
+    public IriCompactor(Map<String, String> prefixes) {
+        /** sorted by prefix first, so that a namespace bound to several prefixes always uses the same one **/
+        for (Map.Entry<String, String> prefix : new TreeMap<>(prefixes).entrySet()) {
+            if (prefix.getValue() == null || prefix.getValue().isEmpty()) continue;
+            if (namespaces.stream().noneMatch(e -> e.getKey().equals(prefix.getValue()))) {
+                namespaces.add(Map.entry(prefix.getValue(), prefix.getKey()));
+            }
+        }
+        /** longest namespaces first, the first match is then the longest one **/
+        namespaces.sort(Comparator.comparingInt((Map.Entry<String, String> e) -> e.getKey().length()).reversed());
+    }
+
+    /**
+     * @param iri the full IRI
+     * @return the prefixed form of the IRI, or the IRI itself when no namespace matches
+     */
+    public String compact(String iri) {
+        if (iri == null) return null;
+        Map.Entry<String, String> namespace = findNamespace(iri);
+        return namespace == null ? iri : namespace.getValue() + ":" + iri.substring(namespace.getKey().length());
+    }
+
+    /**
+     * @param iri the full IRI
+     * @return the IRI without its namespace, or the IRI itself when no namespace matches
+     */
+    public String localName(String iri) {
+        Map.Entry<String, String> namespace = findNamespace(iri);
+        return namespace == null ? iri : iri.substring(namespace.getKey().length());
+    }
+
+    private Map.Entry<String, String> findNamespace(String iri) {
+        for (Map.Entry<String, String> namespace : namespaces) {
+            if (iri.startsWith(namespace.getKey())) return namespace;
+        }
+        return null;
+    }
+}
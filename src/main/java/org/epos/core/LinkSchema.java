@@ -0,0 +1,115 @@
+package org.epos.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+
+/**
+ * Link schema of the EPOS Data Model classes: for each class, the getters able to return a {@link LinkedEntity}
+ * or a collection of them, held as method handles. It is computed once from the org.epos.eposdatamodel package
+ * (classes the scan did not find are resolved on first use), so walking the outgoing links of an entity only
+ * calls these getters. It orders the ingestion by references and collects the entities linked from an export.
+ */
+public class LinkSchema {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkSchema.class);
+
+    private static final String EPOS_DATA_MODEL_PACKAGE = "org.epos.eposdatamodel";
+
+    /** getter typed (EPOSDataModelEntity)Object, returning a link or a collection of links **/
+    private record Accessor(String name, MethodHandle getter) {}
+
+    private static final Map<Class<?>, List<Accessor>> ACCESSORS = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter(new AssignableTypeFilter(EPOSDataModelEntity.class));
+            for (BeanDefinition candidate : scanner.findCandidateComponents(EPOS_DATA_MODEL_PACKAGE)) {
+                Class<?> clazz = Class.forName(candidate.getBeanClassName());
+                ACCESSORS.put(clazz, resolve(clazz));
+            }
+            LOGGER.info("Computed the links of {} EPOS Data Model classes", ACCESSORS.size());
+        } catch (Exception | LinkageError e) {
+            LOGGER.warn("Unable to scan {}, links will be resolved on demand: {}", EPOS_DATA_MODEL_PACKAGE, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Passes the outgoing links of the entity to the action, getter by getter.
+     */
+    public static void forEachLink(EPOSDataModelEntity entity, Consumer<LinkedEntity> action) {
+        for (Accessor accessor : ACCESSORS.computeIfAbsent(entity.getClass(), LinkSchema::resolve)) {
+            Object value = Invocations.invoke(() -> (Object) accessor.getter().invokeExact(entity), e -> {
+                LOGGER.debug("Error invoking method {} on {}: {}", accessor.name(), entity.getClass().getSimpleName(), e.getLocalizedMessage());
+                return null;
+            }, "Getter " + accessor.name() + " of " + entity.getClass().getSimpleName());
+            if (value instanceof LinkedEntity linkedEntity) {
+                action.accept(linkedEntity);
+            } else if (value instanceof Collection<?> items) {
+                for (Object item : items) {
+                    if (item instanceof LinkedEntity linkedEntity) action.accept(linkedEntity);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the outgoing links of the entity
+     */
+    public static List<LinkedEntity> links(EPOSDataModelEntity entity) {
+        List<LinkedEntity> links = new ArrayList<>();
+        forEachLink(entity, links::add);
+        return links;
+    }
+
+    private static List<Accessor> resolve(Class<?> clazz) {
+        List<Accessor> accessors = new ArrayList<>();
+        for (Method method : clazz.getMethods()) {
+            if (!method.getName().startsWith("get") || method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) continue;
+            boolean link = LinkedEntity.class.isAssignableFrom(method.getReturnType());
+            boolean links = Collection.class.isAssignableFrom(method.getReturnType()) && mayHoldLinks(method.getGenericReturnType());
+            if (!link && !links) continue;
+            try {
+                MethodHandle getter = MethodHandles.publicLookup().unreflect(method)
+                        .asType(MethodType.methodType(Object.class, EPOSDataModelEntity.class));
+                accessors.add(new Accessor(method.getName(), getter));
+            } catch (IllegalAccessException e) {
+                LOGGER.debug("Getter {} of {} is not accessible: {}", method.getName(), clazz.getSimpleName(), e.getLocalizedMessage());
+            }
+        }
+        accessors.sort(Comparator.comparing(Accessor::name));
+        return List.copyOf(accessors);
+    }
+
+    /** @return false when the element type of the collection excludes links, true when it is unknown **/
+    private static boolean mayHoldLinks(Type collectionType) {
+        if (!(collectionType instanceof ParameterizedType parameterized) || parameterized.getActualTypeArguments().length != 1) return true;
+        Type element = parameterized.getActualTypeArguments()[0];
+        if (element instanceof WildcardType wildcard) element = wildcard.getUpperBounds()[0];
+        if (element instanceof Class<?> elementClass) {
+            return LinkedEntity.class.isAssignableFrom(elementClass) || elementClass.isAssignableFrom(LinkedEntity.class);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+package org.epos.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDFS;
+
+/**
+ * Precompiled view of a mapping ontology.
+ * Answers the same questions as {@link SPARQLManager#retrieveEDMMappedClass} and
+ * {@link SPARQLManager#retrievePropertyValueInEDM} with hash lookups on full IRIs,
+ * so that ingestion does not build and parse a SPARQL query for every triple.
+ */
+public class MappingIndex {
+
+    public static final String EDM_NAMESPACE = "http://www.epos-eu.org/epos-data-model#";
+
+    private static final Map<Model, MappingIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** source class IRI -> EDM class name **/
+    private final Map<String, String> classes = new HashMap<>();
+
+    /** EDM class name -> (source predicate IRI -> property/range/prop/rangeprop) **/
+    private final Map<String, Map<String, Map<String, String>>> properties = new HashMap<>();
+
+    /** detached copy of the mapping prefixes, the index must not keep its (weak) key alive **/
+    private final PrefixMapping prefixes;
+
+    private final IriCompactor compactor;
+
+    private MappingIndex(Model modelmapping) {
+        this.prefixes = PrefixMapping.Factory.create().setNsPrefixes(modelmapping);
+        Map<String, String> namespaces = new HashMap<>(prefixes.getNsPrefixMap());
+        namespaces.putIfAbsent("edm", EDM_NAMESPACE);
+        this.compactor = new IriCompactor(namespaces);
+        indexClasses(modelmapping);
+        indexProperties(modelmapping);
+    }
+
+    /**
+     * Returns the index of the given mapping model, building it on first use.
+     *
+     * @param modelmapping the mapping ontology
+     * @return the index, or null when no mapping model is given
+     */
+    public static MappingIndex of(Model modelmapping) {
+        if (modelmapping == null) return null;
+        return INDEXES.computeIfAbsent(modelmapping, MappingIndex::new);
+    }
+
+    /**
+     * @param classIRI full IRI of the class used in the metadata file (e.g. dcat:Dataset expanded)
+     * @return the simple name of the mapped EDM class, or null if it is not mapped
+     */
+    public String retrieveEDMMappedClass(String classIRI) {
+        if (classIRI == null) return null;
+        String mapped = classes.get(classIRI);
+        if (mapped == null) mapped = classes.get(prefixes.expandPrefix(classIRI));
+        return mapped;
+    }
+
+    /**
+     * @param predicateIRI full IRI of the predicate used in the metadata file
+     * @param className simple name of the EDM class owning the property
+     * @return the property description (property, range, prop, rangeprop), or null if it is not mapped
+     */
+    public Map<String, String> retrievePropertyValueInEDM(String predicateIRI, String className) {
+        Map<String, Map<String, String>> classProperties = properties.get(className);
+        if (classProperties == null || predicateIRI == null) return null;
+        Map<String, String> property = classProperties.get(predicateIRI);
+        if (property == null) property = classProperties.get(prefixes.expandPrefix(predicateIRI));
+        return property;
+    }
+
+    private void indexClasses(Model modelmapping) {
+        StmtIterator it = modelmapping.listStatements(null, OWL.equivalentClass, (RDFNode) null);
+        try {
+            while (it.hasNext()) {
+                Statement statement = it.next();
+                Resource mapped = statement.getSubject();
+                if (!mapped.isURIResource() || !mapped.getURI().startsWith(EDM_NAMESPACE)) continue;
+                if (!statement.getObject().isURIResource()) continue;
+                classes.putIfAbsent(statement.getObject().asResource().getURI(),
+                        mapped.getURI().substring(EDM_NAMESPACE.length()));
+            }
+        } finally {
+            it.close();
+        }
+    }
+
+    private void indexProperties(Model modelmapping) {
+        StmtIterator it = modelmapping.listStatements(null, OWL.equivalentProperty, (RDFNode) null);
+        try {
+            while (it.hasNext()) {
+                Statement statement = it.next();
+                Resource property = statement.getSubject();
+                if (!property.isURIResource() || !property.getURI().startsWith(EDM_NAMESPACE)) continue;
+                if (!statement.getObject().isURIResource()) continue;
+
+                Statement range = property.getProperty(RDFS.range);
+                if (range == null) continue;
+
+                Map<String, String> item = Map.of(
+                        "property", compactor.localName(property.getURI()),
+                        "range", compactor.localName(range.getObject().toString()),
+                        "prop", "",
+                        "rangeprop", "");
+
+                String predicateIRI = statement.getObject().asResource().getURI();
+                StmtIterator domains = property.listProperties(RDFS.domain);
+                try {
+                    while (domains.hasNext()) {
+                        RDFNode domain = domains.next().getObject();
+                        if (!domain.isURIResource() || !domain.asResource().getURI().startsWith(EDM_NAMESPACE)) continue;
+                        properties.computeIfAbsent(domain.asResource().getURI().substring(EDM_NAMESPACE.length()), k -> new HashMap<>())
+                                .putIfAbsent(predicateIRI, item);
+                    }
+                } finally {
+                    domains.close();
+                }
+            }
+        } finally {
+            it.close();
+        }
+    }
+}
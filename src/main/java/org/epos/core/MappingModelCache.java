@@ -0,0 +1,71 @@
+package org.epos.core;
+
+import java.io.ByteArrayInputStream;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of parsed mapping ontologies.
+ * Entries are keyed by ontology name and validated against the hash of the stored (Base64) content,
+ * so a new version written by any instance is picked up on the next lookup.
+ */
+public class MappingModelCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingModelCache.class);
+
+    private static final Map<String, CachedModel> CACHE = new ConcurrentHashMap<>();
+
+    private record CachedModel(String contentHash, Model model) {}
+
+    /**
+     * Returns the parsed model for the given ontology content, parsing it only when
+     * the cached version is missing or its content changed.
+     *
+     * @param name    the ontology name
+     * @param content the Base64 encoded Turtle content as stored in the database
+     * @return the parsed model
+     */
+    public static Model get(String name, String content) {
+        String contentHash = DigestUtils.sha256Hex(content);
+        CachedModel cached = CACHE.get(name);
+        if (cached != null && cached.contentHash().equals(contentHash)) {
+            return cached.model();
+        }
+        return put(name, content, contentHash);
+    }
+
+    /**
+     * Parses and stores a new version of the ontology, replacing the previous one.
+     *
+     * @param name    the ontology name
+     * @param content the Base64 encoded Turtle content as stored in the database
+     * @return the parsed model
+     */
+    public static Model refresh(String name, String content) {
+        return put(name, content, DigestUtils.sha256Hex(content));
+    }
+
+    public static void evict(String name) {
+        CACHE.remove(name);
+    }
+
+    public static void invalidate() {
+        LOGGER.info("Invalidating {} cached mapping models", CACHE.size());
+        CACHE.clear();
+    }
+
+    private static Model put(String name, String content, String contentHash) {
+        LOGGER.debug("Parsing mapping model {} ({})", name, contentHash);
+        Model model = ModelFactory.createDefaultModel()
+                .read(new ByteArrayInputStream(Base64.getDecoder().decode(content)), null, "TURTLE");
+        CACHE.put(name, new CachedModel(contentHash, model));
+        return model;
+    }
+}
@@ -1,16 +1,21 @@
 package org.epos.core;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jena.graph.Graph;
@@ -18,7 +23,11 @@ import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
 import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
 import org.epos.eposdatamodel.EPOSDataModelEntity;
 import org.epos.eposdatamodel.Group;
 import org.epos.eposdatamodel.IriTemplate;
@@ -26,11 +35,9 @@ import org.epos.eposdatamodel.LinkedEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import abstractapis.AbstractAPI;
 import dao.EposDataModelDAO;
 import model.Ontology;
 import model.StatusType;
-import usermanagementapis.UserGroupManagementAPI;
 
 public class MetadataPopulator {
 
@@ -38,6 +45,9 @@ public class MetadataPopulator {
 
     private static BeansCreation beansCreation = new BeansCreation();
 
+    /** Source name reported to listeners for content sent in the request body **/
+    public static final String CONTENT_SOURCE = "request body";
+
     public static Model retrieveModelMapping(String inputMappingModel){
         EposDataModelDAO eposDataModelDAO = EposDataModelDAO.getInstance();
 
@@ -46,16 +56,15 @@ public class MetadataPopulator {
          **/
         List<Ontology> ontologiesList = eposDataModelDAO.getAllFromDB(Ontology.class);
 
-        String triples = null;
+        Ontology mappingOntology = null;
         for(Ontology ontologies : ontologiesList){
             if(ontologies.getName().equals(inputMappingModel)){
-                triples = new String(Base64.getDecoder().decode(ontologies.getContent()));
+                mappingOntology = ontologies;
             }
         }
         Model modelmapping = null;
-        if(triples!=null) {
-            modelmapping = ModelFactory.createDefaultModel()
-                    .read(IOUtils.toInputStream(triples, StandardCharsets.UTF_8), null, "TURTLE");
+        if(mappingOntology!=null && mappingOntology.getContent()!=null) {
+            modelmapping = MappingModelCache.get(mappingOntology.getName(), mappingOntology.getContent());
         }
         return modelmapping;
     }
@@ -63,110 +72,126 @@ public class MetadataPopulator {
     public static Model retrieveMetadataModelFromTTL(String url){
 
         final Model model = ModelFactory.createDefaultModel();
-        model.read(url, null, "TURTLE");
+        try (SourceFetcher.Resource resource = SourceFetcher.get().open(url)) {
+            RDFSyntax.parse(resource.content(), url, RDFSyntax.detect(resource.contentType(), url), RDFSyntax.toGraph(model.getGraph()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
         return model;
     }
 
 	public static Model retrieveMetadataModelFromString(String ttl) {
 		final Model model = ModelFactory.createDefaultModel();
-		InputStream inputStream = new ByteArrayInputStream(ttl.getBytes(StandardCharsets.UTF_8));
-		model.read(inputStream, null, "TURTLE");
+		/** parsed from the string itself, without an encoded copy of the content **/
+		RDFParser.create().fromString(ttl).lang(Lang.TURTLE).parse(model.getGraph());
 		return model;
 	}
 
-    public static void retrievePlainValueFromInnerMethods(Model modelmapping,BeansCreation beansCreation, List<EPOSDataModelEntity> classes, Graph graph, String subject, EPOSDataModelEntity activeClass, List<Group> selectedGroup, String editorId){
-        Map<String, String> prefixes = modelmapping.getNsPrefixMap();
+    /** A mapped property found on a nested node, ready to be applied to the owning entity **/
+    private record InnerValue(Map<String, String> itemValue, Node object) {}
 
-        for (ExtendedIterator<Triple> it = graph.find(); it.hasNext(); ) {
-            Map<String, String> itemValue = null;
-            Map<String, Object> innerValue = new HashMap<>();
-            Triple triple = it.next();
+    private static void retrievePlainValueFromInnerMethods(MappingIndex mappingIndex, BeansCreation beansCreation, IngestionContext context, Graph graph, Node subject, EPOSDataModelEntity activeClass, List<Group> selectedGroup, String editorId, Map<String, Map<Node, List<InnerValue>>> innerValuesMemo){
+        List<InnerValue> innerValues = resolveInnerValues(mappingIndex, graph, subject, activeClass.getClass().getSimpleName(), innerValuesMemo);
 
-            if(subject.equals(triple.getSubject().toString())) {
+        for (InnerValue innerValue : innerValues) {
+            if(innerValue.object().isLiteral())
+                beansCreation.getEPOSDataModelPropertiesLiteral(activeClass, context, innerValue.itemValue(), innerValue.object().getLiteralValue().toString());
+            if(innerValue.object().isBlank())
+                beansCreation.getEPOSDataModelPropertiesNode(activeClass, context, innerValue.itemValue(), innerValue.object().toString(), selectedGroup, editorId);
+        }
+    }
 
-                /** Get predicate value of triple and replace long prefix with short one **/
-                String value = triple.getPredicate().toString();
-                for (String key : prefixes.keySet()) {
-                    if (value.contains(prefixes.get(key))) value = value.replaceAll(prefixes.get(key), key + ":");
-                }
-                if (!value.equals("rdf:type")) {
-                    itemValue = SPARQLManager.retrievePropertyValueInEDM(value, activeClass.getClass().getSimpleName(), modelmapping);
-                    /** TODO: add recursive gathering of the element **/
-                    if(itemValue == null){
-                        if(triple.getObject().isBlank()) retrievePlainValueFromInnerMethods(modelmapping, beansCreation, classes, graph, triple.getObject().toString(), activeClass, selectedGroup, editorId);
-                    } else{
-                        innerValue.put("itemValue",itemValue);
-                        if(triple.getObject().isLiteral()) innerValue.put("plain",triple.getObject().getLiteralValue());
-                        if(triple.getObject().isBlank()) innerValue.put("node",triple.getObject().toString());
-                        if(innerValue.get("plain")!=null)
-                            beansCreation.getEPOSDataModelPropertiesLiteral(activeClass, classes, (Map<String, String>) innerValue.get("itemValue"), innerValue.get("plain").toString());
-                        if(innerValue.get("node")!=null)
-                            beansCreation.getEPOSDataModelPropertiesNode(activeClass, classes, (Map<String, String>) innerValue.get("itemValue"), innerValue.get("node").toString(), selectedGroup, editorId);
+    /**
+     * Collects the properties of the given node (and of its unmapped blank children) that map onto the class.
+     * Results are memoized per class and node, so shared or deeply nested structures are expanded once
+     * and cyclic blank node structures terminate.
+     */
+    private static List<InnerValue> resolveInnerValues(MappingIndex mappingIndex, Graph graph, Node subject, String className, Map<String, Map<Node, List<InnerValue>>> innerValuesMemo) {
+        if (subject.isLiteral()) return List.of();
+
+        Map<Node, List<InnerValue>> classMemo = innerValuesMemo.computeIfAbsent(className, k -> new HashMap<>());
+        List<InnerValue> innerValues = classMemo.get(subject);
+        if (innerValues != null) return innerValues;
+        classMemo.put(subject, List.of());
+
+        innerValues = new ArrayList<>();
+        for (ExtendedIterator<Triple> it = graph.find(subject, Node.ANY, Node.ANY); it.hasNext(); ) {
+            Triple triple = it.next();
+            if (RDF.type.asNode().equals(triple.getPredicate())) continue;
 
-                    }
-                }
+            Map<String, String> itemValue = mappingIndex.retrievePropertyValueInEDM(triple.getPredicate().getURI(), className);
+            if(itemValue == null){
+                if(triple.getObject().isBlank()) innerValues.addAll(resolveInnerValues(mappingIndex, graph, triple.getObject(), className, innerValuesMemo));
+            } else if(triple.getObject().isLiteral() || triple.getObject().isBlank()) {
+                innerValues.add(new InnerValue(itemValue, triple.getObject()));
             }
         }
+        classMemo.put(subject, innerValues);
+        return innerValues;
     }
 
 
-    public static void exploreGraphAndCreateBeans(Model modelmapping, BeansCreation beansCreation, Graph graph, EPOSDataModelEntity activeClass, List<EPOSDataModelEntity> classes, List<String> uidDone, List<Group> selectedGroup, String editorId) {
+    public static void exploreGraphAndCreateBeans(Model modelmapping, BeansCreation beansCreation, Graph graph, EPOSDataModelEntity activeClass, IngestionContext context, Set<String> uidDone, List<Group> selectedGroup, String editorId) {
         /** SET PREFIXES **/
-        Map<String, String> prefixes = modelmapping.getNsPrefixMap();
+        MappingIndex mappingIndex = MappingIndex.of(modelmapping);
 
-        for (ExtendedIterator<Triple> it = graph.find(); it.hasNext(); ) {
-            Triple triple = it.next();
-            /** Get predicate value of triple and replace long prefix with short one **/
-            String value = triple.getPredicate().toString();
-            for (String key : prefixes.keySet()) {
-                if (value.contains(prefixes.get(key))) value = value.replaceAll(prefixes.get(key), key + ":");
-            }
+        /** Index typed subjects by the string form used as entity uid **/
+        Map<String, Node> subjects = new HashMap<>();
+        for (ExtendedIterator<Triple> it = graph.find(Node.ANY, RDF.type.asNode(), Node.ANY); it.hasNext(); ) {
+            Node subject = it.next().getSubject();
+            subjects.putIfAbsent(subject.toString(), subject);
+        }
 
-            /** Retrieve Active Class **/
-            for(EPOSDataModelEntity entity : classes){
-                if(!uidDone.contains(entity.getUid())) {
-                    activeClass = entity;
-                    if (activeClass != null && activeClass.getUid().equals(triple.getSubject().toString())) {
-                        uidDone.add(activeClass.getUid());
-                        //exploreGraphAndCreateBeans(modelmapping, beansCreation, graph, activeClass, classes, uidDone);
-                        for (ExtendedIterator<Triple> iterator = graph.find(triple.getSubject(), Node.ANY, Node.ANY); iterator.hasNext();) {
-
-                            Triple triple1 = iterator.next();
-                            Map<String, String> itemValue = null;
-
-                            /** Get predicate value of triple and replace long prefix with short one **/
-                            String predicate = triple1.getPredicate().toString();
-
-                            for (String key : prefixes.keySet()) {
-                                if (predicate.contains(prefixes.get(key))) predicate = predicate.replaceAll(prefixes.get(key), key + ":");
-                            }
-
-                            /** Manage Properties of Active Class **/
-                            if (!predicate.equals("rdf:type")) {
-                                itemValue = SPARQLManager.retrievePropertyValueInEDM(predicate, activeClass.getClass().getSimpleName(), modelmapping);
-                                //NOTE: !triple1.getSubject().isBlank() && triple1.getObject().isBlank() &&  removed
-                                if(itemValue==null){
-                                    retrievePlainValueFromInnerMethods(modelmapping, beansCreation, classes, graph, triple1.getObject().toString(), activeClass, selectedGroup, editorId);
-                                }
-                            }
-
-                            if(itemValue != null) {
-                                manageItemValue(activeClass, classes, itemValue, triple1.getObject(), selectedGroup, editorId);
-                            }
-                        }
+        /** Visit each main entity once, reading only its own triples **/
+        Map<Node, EPOSDataModelEntity> toExplore = new LinkedHashMap<>();
+        for (EPOSDataModelEntity entity : context.getEntities()) {
+            if (!uidDone.add(entity.getUid())) continue;
+            Node subject = subjects.get(entity.getUid());
+            if (subject != null) toExplore.put(subject, entity);
+        }
+        exploreEntities(mappingIndex, beansCreation, graph, toExplore, context, selectedGroup, editorId);
+    }
+
+    /**
+     * Applies the mapped properties found in the graph to the given entities.
+     *
+     * @param entities the entities to fill, by the graph node they were created from
+     */
+    static void exploreEntities(MappingIndex mappingIndex, BeansCreation beansCreation, Graph graph, Map<Node, EPOSDataModelEntity> entities, IngestionContext context, List<Group> selectedGroup, String editorId) {
+        Map<String, Map<Node, List<InnerValue>>> innerValuesMemo = new HashMap<>();
+
+        for (Map.Entry<Node, EPOSDataModelEntity> entry : entities.entrySet()) {
+            Node subject = entry.getKey();
+            EPOSDataModelEntity activeClass = entry.getValue();
+
+            for (ExtendedIterator<Triple> iterator = graph.find(subject, Node.ANY, Node.ANY); iterator.hasNext();) {
+
+                Triple triple1 = iterator.next();
+                Map<String, String> itemValue = null;
+
+                /** Manage Properties of Active Class **/
+                if (!RDF.type.asNode().equals(triple1.getPredicate())) {
+                    itemValue = mappingIndex.retrievePropertyValueInEDM(triple1.getPredicate().getURI(), activeClass.getClass().getSimpleName());
+                    //NOTE: !triple1.getSubject().isBlank() && triple1.getObject().isBlank() &&  removed
+                    if(itemValue==null){
+                        retrievePlainValueFromInnerMethods(mappingIndex, beansCreation, context, graph, triple1.getObject(), activeClass, selectedGroup, editorId, innerValuesMemo);
                     }
                 }
+
+                if(itemValue != null) {
+                    manageItemValue(activeClass, context, itemValue, triple1.getObject(), selectedGroup, editorId);
+                }
             }
         }
     }
 
-    private static void manageItemValue(EPOSDataModelEntity activeClass, List<EPOSDataModelEntity> classes, Map<String, String> itemValue, Node node, List<Group> selectedGroup, String editorId) {
+    private static void manageItemValue(EPOSDataModelEntity activeClass, IngestionContext context, Map<String, String> itemValue, Node node, List<Group> selectedGroup, String editorId) {
         //System.out.println("["+activeClass.getClass().getSimpleName()+"] "+node.toString()+" "+itemValue);
         if (node.isURI()) {
-            beansCreation.getEPOSDataModelPropertiesNode(activeClass, classes, itemValue, node.toString(), selectedGroup, editorId);
+            beansCreation.getEPOSDataModelPropertiesNode(activeClass, context, itemValue, node.toString(), selectedGroup, editorId);
         } else if (node.isBlank()) {
-            beansCreation.getEPOSDataModelPropertiesNode(activeClass, classes, itemValue, node.toString(), selectedGroup, editorId);
+            beansCreation.getEPOSDataModelPropertiesNode(activeClass, context, itemValue, node.toString(), selectedGroup, editorId);
         }else if (node.isLiteral()) {
             String s = null;
             if(node.toString().contains("\"")){
@@ -174,9 +199,9 @@ public class MetadataPopulator {
                 s = StringUtils.substringBetween(s, "\"", "\"");
             }
             //System.out.println("[NODE IS LITERAL "+activeClass.getClass().getSimpleName()+"] "+node.toString()+" "+itemValue+" "+s);
-            beansCreation.getEPOSDataModelPropertiesLiteral(activeClass, classes, itemValue, s==null? node.getLiteralValue() : s);
+            beansCreation.getEPOSDataModelPropertiesLiteral(activeClass, context, itemValue, s==null? node.getLiteralValue() : s);
         } else if (node.isConcrete()) {
-            beansCreation.getEPOSDataModelPropertiesLiteral(activeClass, classes, itemValue, node.getLiteral().getValue());
+            beansCreation.getEPOSDataModelPropertiesLiteral(activeClass, context, itemValue, node.getLiteral().getValue());
         } else if (node.isVariable()
                 || node.isExt()
                 || node.isNodeGraph()) {
@@ -185,102 +210,174 @@ public class MetadataPopulator {
     }
 
 	private static Map<String, LinkedEntity> populateMetadata(Model model, String inputMappingModel,
-			List<Group> selectedGroup, StatusType status, String editorId) {
+			List<Group> selectedGroup, StatusType status, String editorId, String source, IngestionListener listener, SharedEntityRegistry registry, ChangeDetection.Snapshot snapshot) {
+		IngestionContext context = mapModel(model, inputMappingModel, selectedGroup, editorId, source, listener);
+		return persistEntities(context, selectedGroup, status, source, listener, registry, snapshot);
+	}
+
+	/**
+	 * Maps the model to entity beans, the returned entities no longer refer to the model.
+	 */
+	private static IngestionContext mapModel(Model model, String inputMappingModel, List<Group> selectedGroup, String editorId, String source, IngestionListener listener) {
+		listener.phaseStarted(source, IngestionPhase.MAP);
 		/** RETRIEVE MAPPING MODEL AND MODEL FROM TTL **/
-		Map<String, LinkedEntity> returnMap = new HashMap<>();
 		Model modelmapping = retrieveModelMapping(inputMappingModel);
+		MappingIndex mappingIndex = MappingIndex.of(modelmapping);
 		Graph graph = model.getGraph();
 
 		/** DEFINE VARIABLES **/
-		List<EPOSDataModelEntity> classes = new ArrayList<>();
-		List<String> uidDone = new ArrayList<>();
+		IngestionContext context = new IngestionContext();
+		Set<String> uidDone = new HashSet<>();
 		BeansCreation beansCreation = new BeansCreation();
 
 		/** PREPARE CLASSES **/
 		Map<String, Map<String, String>> classesMap = SPARQLManager.retrieveMainEntities(model);
 		for (String uid : classesMap.keySet()) {
-			String className = SPARQLManager.retrieveEDMMappedClass(classesMap.get(uid).get("class").toString(),
-					modelmapping);
-			EPOSDataModelEntity entity = beansCreation.getEPOSDataModelClass(className, uid, selectedGroup, editorId);
-			classes.add(entity);
+			String className = mappingIndex.retrieveEDMMappedClass(classesMap.get(uid).get("class"));
+			context.add(beansCreation.getEPOSDataModelClass(className, uid, selectedGroup, editorId));
 		}
-		classes.removeIf(Objects::isNull);
 
 		/** PREPARE PROPERTIES **/
-		exploreGraphAndCreateBeans(modelmapping, beansCreation, graph, null, classes, uidDone, selectedGroup, editorId);
+		exploreGraphAndCreateBeans(modelmapping, beansCreation, graph, null, context, uidDone, selectedGroup, editorId);
 
-		List<IriTemplate> templates = new ArrayList<>();
-		for (EPOSDataModelEntity eposDataModelEntity : classes) {
-			if (eposDataModelEntity instanceof IriTemplate) {
-				templates.add((IriTemplate) eposDataModelEntity);
-			}
-		}
-		classes.removeAll(templates);
-
-		for (EPOSDataModelEntity eposDataModelEntity : classes) {
-			if (eposDataModelEntity instanceof org.epos.eposdatamodel.Operation) {
-				for (IriTemplate template : templates) {
-					if (template.getUid().equals(
-							((org.epos.eposdatamodel.Operation) eposDataModelEntity).getIriTemplate().getUid())) {
-						((org.epos.eposdatamodel.Operation) eposDataModelEntity).setMapping(template.getMappings());
-						((org.epos.eposdatamodel.Operation) eposDataModelEntity).setTemplate(template.getTemplate());
-					}
-				}
-				// System.out.println("OPERATION "+eposDataModelEntity);
+		for (org.epos.eposdatamodel.Operation operation : context.getAll(org.epos.eposdatamodel.Operation.class)) {
+			if (operation.getIriTemplate() != null
+					&& context.get(operation.getIriTemplate().getUid()) instanceof IriTemplate template) {
+				operation.setMapping(template.getMappings());
+				operation.setTemplate(template.getTemplate());
 			}
+			// System.out.println("OPERATION "+operation);
 		}
+		new ArrayList<>(context.getAll(IriTemplate.class)).forEach(context::remove);
 
-        String salt = RandomStringUtils.randomAlphanumeric(17).toUpperCase();
+		listener.phaseCompleted(source, IngestionPhase.MAP, context.size());
+		return context;
+	}
 
+	private static Map<String, LinkedEntity> persistEntities(IngestionContext context, List<Group> selectedGroup, StatusType status,
+			String source, IngestionListener listener, SharedEntityRegistry registry, ChangeDetection.Snapshot snapshot) {
+        String salt = RandomStringUtils.randomAlphanumeric(17).toUpperCase();
 
         /** DATABASE POPULATION **/
-		for (EPOSDataModelEntity eposDataModelEntity : classes) {
-            if(status!=null) eposDataModelEntity.setStatus(status);
-            eposDataModelEntity.setFileProvenance(salt);
-            if(eposDataModelEntity instanceof org.epos.eposdatamodel.Category) eposDataModelEntity.setStatus(StatusType.PUBLISHED);
-            if(eposDataModelEntity instanceof org.epos.eposdatamodel.CategoryScheme) eposDataModelEntity.setStatus(StatusType.PUBLISHED);
-            if(eposDataModelEntity instanceof org.epos.eposdatamodel.Organization) eposDataModelEntity.setStatus(StatusType.PUBLISHED);
-            if(eposDataModelEntity instanceof org.epos.eposdatamodel.ContactPoint) eposDataModelEntity.setStatus(StatusType.PUBLISHED);
-            if(eposDataModelEntity instanceof org.epos.eposdatamodel.Person) eposDataModelEntity.setStatus(StatusType.PUBLISHED);
-            if((eposDataModelEntity instanceof  org.epos.eposdatamodel.Category ||
-                    eposDataModelEntity instanceof  org.epos.eposdatamodel.CategoryScheme ||
-                    eposDataModelEntity instanceof  org.epos.eposdatamodel.Organization ||
-                    eposDataModelEntity instanceof  org.epos.eposdatamodel.ContactPoint ||
-                    eposDataModelEntity instanceof  org.epos.eposdatamodel.Person)
-                    && status!=StatusType.PUBLISHED) {
-                LOGGER.debug("Skipping ingestion cause of already PUBLISHED information  -> " + eposDataModelEntity);
-            }
-            else {
-                try {
-                    AbstractAPI api = AbstractAPI.retrieveAPI(eposDataModelEntity.getClass().getSimpleName().toUpperCase());
-                    LOGGER.debug("Ingesting -> " + eposDataModelEntity);
-                    LinkedEntity le = api.create(eposDataModelEntity, null, null, null);
-                    returnMap.put(le.getUid(), le);
-                } catch (Exception apiCreationException) {
-                    apiCreationException.printStackTrace();
-                    LOGGER.error("[ERROR] ON: " + eposDataModelEntity.toString() + "\n[EXCEPTION]: "
-                            + apiCreationException.getLocalizedMessage());
-                }
-            }
+		listener.phaseStarted(source, IngestionPhase.PERSIST);
+		Map<String, LinkedEntity> persisted = EntityPersister.persist(context.getEntities(), selectedGroup, status, salt, snapshot, registry);
+		if (snapshot != null) snapshot.complete();
+		listener.phaseCompleted(source, IngestionPhase.PERSIST, persisted.size());
+		return persisted;
+	}
+
+    public static Map<String,LinkedEntity> startMetadataPopulation(String url, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId){
+		return startMetadataPopulation(url, inputMappingModel, selectedGroup, status, editorId, IngestionListener.NONE);
+    }
+
+    public static Map<String,LinkedEntity> startMetadataPopulation(String url, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener){
+		return startMetadataPopulation(url, inputMappingModel, selectedGroup, status, editorId, listener, null);
+    }
+
+	/**
+	 * @param registry the shared entities written by the other files of a multi-file run, null for a single file
+	 */
+	public static Map<String,LinkedEntity> startMetadataPopulation(String url, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener, SharedEntityRegistry registry){
+		return startMetadataPopulation(url, inputMappingModel, selectedGroup, status, editorId, listener, registry, true);
+	}
+
+	/**
+	 * @param registry         the shared entities written by the other files of a multi-file run, null for a single file
+	 * @param changeDetection  false when the URL is not the one given by the caller (e.g. a spooled copy of an upload),
+	 *                         its entities are then all persisted and no hashes are stored for it
+	 */
+	public static Map<String,LinkedEntity> startMetadataPopulation(String url, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener, SharedEntityRegistry registry, boolean changeDetection){
+		listener.phaseStarted(url, IngestionPhase.FETCH);
+		try (SourceFetcher.Resource resource = SourceFetcher.get().open(url)) {
+			listener.phaseCompleted(url, IngestionPhase.FETCH, 0);
+			Lang lang = RDFSyntax.detect(resource.contentType(), url);
+			DigestInputStream in = new DigestInputStream(resource.content(), DigestUtils.getSha256Digest());
+			Map<String, LinkedEntity> persisted = populateMetadata(sink -> RDFSyntax.parse(in, url, lang, sink), inputMappingModel, selectedGroup, status, editorId, url, listener, registry,
+					changeDetection ? ChangeDetection.open(url, inputMappingModel, selectedGroup) : null);
+			reportContentHash(in, url, listener);
+			return persisted;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
+	}
 
-		for (Map.Entry<String, LinkedEntity> uid : returnMap.entrySet()) {
-			if (selectedGroup != null) {
-                for(Group selectedGroup1 : selectedGroup)
-				    UserGroupManagementAPI.addMetadataElementToGroup(uid.getValue().getMetaId(), selectedGroup1.getId());
-			}
+	/**
+	 * Ingests a document read from a stream (e.g. an uploaded body or an archive entry), the stream is not closed.
+	 *
+	 * @param source       the name of the document, reported to the listener and used to select the syntax
+	 * @param contentType  the declared content type of the document, may be null
+	 * @param registry     the shared entities written by the other documents of the run, may be null
+	 */
+	public static Map<String, LinkedEntity> startMetadataPopulationFromStream(InputStream content, String source, String contentType, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener, SharedEntityRegistry registry) {
+		listener.phaseCompleted(source, IngestionPhase.FETCH, 0);
+		Lang lang = RDFSyntax.detect(contentType, source);
+		DigestInputStream in = new DigestInputStream(content, DigestUtils.getSha256Digest());
+		Map<String, LinkedEntity> persisted = populateMetadata(sink -> RDFSyntax.parse(in, null, lang, sink), inputMappingModel, selectedGroup, status, editorId, source, listener, registry, null);
+		try {
+			reportContentHash(in, source, listener);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
+		return persisted;
+	}
 
-		return returnMap;
+	/** The parser may stop before the end of the content (e.g. trailing whitespace), the rest is read for the hash **/
+	private static void reportContentHash(DigestInputStream in, String source, IngestionListener listener) throws IOException {
+		in.transferTo(OutputStream.nullOutputStream());
+		listener.contentHashed(source, Hex.encodeHexString(in.getMessageDigest().digest()));
 	}
 
-    public static Map<String,LinkedEntity> startMetadataPopulation(String url, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId){
-		Model model = retrieveMetadataModelFromTTL(url);
-		return populateMetadata(model, inputMappingModel, selectedGroup, status, editorId);
-    }
+	/**
+	 * @param snapshot the hashes of the previous ingestion of the source, null to persist every entity
+	 */
+	private static Map<String, LinkedEntity> populateMetadata(Consumer<StreamRDF> parser, String inputMappingModel,
+			List<Group> selectedGroup, StatusType status, String editorId, String source, IngestionListener listener, SharedEntityRegistry registry, ChangeDetection.Snapshot snapshot) {
+		if (StreamingIngestion.isEnabled()) {
+			return populateMetadataStreaming(parser, inputMappingModel, selectedGroup, status, editorId, source, listener, registry, snapshot);
+		}
+		if (DiskGraph.isEnabled()) {
+			listener.phaseStarted(source, IngestionPhase.PARSE);
+			/** mapped inside the read transaction of the disk graph, persisted once it is closed **/
+			IngestionContext context = DiskGraph.withModel(parser, model -> {
+				listener.phaseCompleted(source, IngestionPhase.PARSE, (int) model.size());
+				return mapModel(model, inputMappingModel, selectedGroup, editorId, source, listener);
+			}, source);
+			return persistEntities(context, selectedGroup, status, source, listener, registry, snapshot);
+		}
+		listener.phaseStarted(source, IngestionPhase.PARSE);
+		final Model model = ModelFactory.createDefaultModel();
+		parser.accept(RDFSyntax.toGraph(model.getGraph()));
+		listener.phaseCompleted(source, IngestionPhase.PARSE, (int) model.size());
+		return populateMetadata(model, inputMappingModel, selectedGroup, status, editorId, source, listener, registry, snapshot);
+	}
+
+	/**
+	 * Maps and persists the triples while they are parsed, without building the model of the file.
+	 */
+	private static Map<String, LinkedEntity> populateMetadataStreaming(Consumer<StreamRDF> parser, String inputMappingModel,
+			List<Group> selectedGroup, StatusType status, String editorId, String source, IngestionListener listener, SharedEntityRegistry registry, ChangeDetection.Snapshot snapshot) {
+		MappingIndex mappingIndex = MappingIndex.of(retrieveModelMapping(inputMappingModel));
+		StreamingIngestion streaming = new StreamingIngestion(mappingIndex, selectedGroup, status, editorId, snapshot, registry);
+
+		/** parsing, mapping and batch persistence run together **/
+		listener.phaseStarted(source, IngestionPhase.PARSE);
+		listener.phaseStarted(source, IngestionPhase.MAP);
+		parser.accept(streaming);
+		listener.phaseCompleted(source, IngestionPhase.PARSE, (int) streaming.getTriples());
+		listener.phaseCompleted(source, IngestionPhase.MAP, streaming.getMapped());
+
+		listener.phaseStarted(source, IngestionPhase.PERSIST);
+		Map<String, LinkedEntity> persisted = streaming.complete();
+		listener.phaseCompleted(source, IngestionPhase.PERSIST, persisted.size());
+		return persisted;
+	}
 
 	public static Map<String, LinkedEntity> startMetadataPopulationFromContent(String ttlContent, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId) {
-		Model model = retrieveMetadataModelFromString(ttlContent);
-		return populateMetadata(model, inputMappingModel, selectedGroup, status, editorId);
+		return startMetadataPopulationFromContent(ttlContent, inputMappingModel, selectedGroup, status, editorId, IngestionListener.NONE);
+	}
+
+	public static Map<String, LinkedEntity> startMetadataPopulationFromContent(String ttlContent, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener) {
+		listener.phaseCompleted(CONTENT_SOURCE, IngestionPhase.FETCH, 0);
+		return populateMetadata(sink -> RDFParser.create().fromString(ttlContent).lang(Lang.TURTLE).parse(sink), inputMappingModel, selectedGroup, status, editorId, CONTENT_SOURCE, listener, null, null);
 	}
 }
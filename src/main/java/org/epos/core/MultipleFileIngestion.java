@@ -0,0 +1,195 @@
+package org.epos.core;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.epos.eposdatamodel.Group;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import model.StatusType;
+
+/**
+ * Ingestion of a list of metadata files (type=multiple).
+ * Each file is fetched, parsed, mapped and persisted on its own virtual thread, at most
+ * INGESTOR_FILE_CONCURRENCY files at a time, so that the network and parsing time of a file
+ * overlaps with the others. Their writes stay sequential: {@link EntityPersister} writes one file at a time
+ * unless INGESTOR_PERSISTENCE_THREADS enables concurrent writes. Results are merged in the order of the list, as a sequential run would.
+ * The files of a run share a {@link SharedEntityRegistry}, so an organization or a person found in
+ * many files is written once. With a {@link CheckpointJournal}, a run started again after an interruption
+ * skips the files already ingested whose content did not change; uploaded files are not journaled.
+ */
+public class MultipleFileIngestion {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultipleFileIngestion.class);
+
+    /** Number of files ingested at the same time, 1 ingests sequentially **/
+    private static final int FILE_CONCURRENCY = parseConcurrency(System.getenv("INGESTOR_FILE_CONCURRENCY"));
+
+    /**
+     * @param url     the ingested file
+     * @param result  the created entities by UID, empty when the ingestion failed
+     * @param error   the failure message, null on success
+     */
+    public record FileResult(String url, Map<String, LinkedEntity> result, String error) {
+        public boolean isFailed() {
+            return error != null;
+        }
+    }
+
+    /**
+     * @param urls               the files to ingest
+     * @param inputMappingModel  the mapping model name
+     * @param selectedGroup      the groups the created elements are added to
+     * @param status             the status to ingest as
+     * @param editorId           the editor of the created elements
+     * @param listener           receives the progress of every file
+     * @return one result per file, in the order of {@code urls}
+     */
+    public static List<FileResult> ingest(List<String> urls, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener) {
+        return ingest(urls, inputMappingModel, selectedGroup, status, editorId, listener, true);
+    }
+
+    /**
+     * @param changeDetection  false when the URLs are not the ones given by the caller (spooled copies of an upload)
+     * @return one result per file, in the order of {@code urls}
+     */
+    public static List<FileResult> ingest(List<String> urls, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener, boolean changeDetection) {
+        List<FileResult> results = new ArrayList<>(urls.size());
+        SharedEntityRegistry registry = new SharedEntityRegistry();
+        /** spooled copies have new names on every request, there is nothing to resume **/
+        CheckpointJournal journal = changeDetection ? CheckpointJournal.open(urls, inputMappingModel, selectedGroup, status) : null;
+        if (FILE_CONCURRENCY == 1 || urls.size() <= 1) {
+            for (String url : urls) results.add(ingestFile(url, inputMappingModel, selectedGroup, status, editorId, listener, registry, journal, changeDetection));
+            return completeRun(results, journal);
+        }
+
+        Semaphore permits = new Semaphore(FILE_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<FileResult>> tasks = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                tasks.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return ingestFile(url, inputMappingModel, selectedGroup, status, editorId, listener, registry, journal, changeDetection);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    results.add(tasks.get(i).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    tasks.forEach(task -> task.cancel(true));
+                    throw new IllegalStateException("Interrupted while ingesting " + urls.get(i), e);
+                } catch (ExecutionException e) {
+                    results.add(new FileResult(urls.get(i), Map.of(), e.getCause().getLocalizedMessage()));
+                    listener.fileFailed(urls.get(i), e.getCause().getLocalizedMessage());
+                }
+            }
+        }
+        return completeRun(results, journal);
+    }
+
+    /** Every file was attempted, the next run ingests the failed ones and checks the others again **/
+    private static List<FileResult> completeRun(List<FileResult> results, CheckpointJournal journal) {
+        if (journal != null) journal.delete();
+        return results;
+    }
+
+    /**
+     * Merges the results in list order, entities of a later file replace the ones of an earlier file with the same UID.
+     */
+    public static Map<String, LinkedEntity> merge(List<FileResult> results) {
+        Map<String, LinkedEntity> merged = new LinkedHashMap<>();
+        for (FileResult fileResult : results) merged.putAll(fileResult.result());
+        return merged;
+    }
+
+    private static FileResult ingestFile(String url, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener, SharedEntityRegistry registry, CheckpointJournal journal, boolean changeDetection) {
+        if (journal == null) {
+            LOGGER.info("[Ingestion initialized] Ingesting file {} using mapping {} in the group {}", url, inputMappingModel, selectedGroup);
+            return ingest(url, listener, () -> MetadataPopulator.startMetadataPopulation(url, inputMappingModel, selectedGroup, status, editorId, listener, registry, changeDetection));
+        }
+
+        Map<String, LinkedEntity> resumed = journal.resume(url);
+        if (resumed != null) {
+            LOGGER.info("[Ingestion skipped] File {} already ingested by an interrupted run", url);
+            listener.fileSkipped(url);
+            return new FileResult(url, resumed, null);
+        }
+
+        LOGGER.info("[Ingestion initialized] Ingesting file {} using mapping {} in the group {}", url, inputMappingModel, selectedGroup);
+        AtomicReference<String> contentHash = new AtomicReference<>();
+        IngestionListener hashListener = new IngestionListener() {
+            @Override
+            public void phaseStarted(String source, IngestionPhase phase) {
+                listener.phaseStarted(source, phase);
+            }
+
+            @Override
+            public void phaseCompleted(String source, IngestionPhase phase, int items) {
+                listener.phaseCompleted(source, phase, items);
+            }
+
+            @Override
+            public void fileFailed(String source, String error) {
+                listener.fileFailed(source, error);
+            }
+
+            @Override
+            public void contentHashed(String source, String sha256) {
+                contentHash.set(sha256);
+                listener.contentHashed(source, sha256);
+            }
+        };
+        FileResult result = ingest(url, hashListener, () -> MetadataPopulator.startMetadataPopulation(url, inputMappingModel, selectedGroup, status, editorId, hashListener, registry, changeDetection));
+        if (!result.isFailed()) journal.completed(url, contentHash.get(), result.result());
+        return result;
+    }
+
+    /**
+     * Ingests one document of an uploaded payload, failures are reported in the result.
+     *
+     * @param registry the shared entities written by the other documents of the payload
+     */
+    public static FileResult ingestDocument(String name, String contentType, InputStream content, String inputMappingModel, List<Group> selectedGroup, StatusType status, String editorId, IngestionListener listener, SharedEntityRegistry registry) {
+        LOGGER.info("[Ingestion initialized] Ingesting document {} using mapping {} in the group {}", name, inputMappingModel, selectedGroup);
+        return ingest(name, listener, () -> MetadataPopulator.startMetadataPopulationFromStream(content, name, contentType, inputMappingModel, selectedGroup, status, editorId, listener, registry));
+    }
+
+    private static FileResult ingest(String source, IngestionListener listener, Supplier<Map<String, LinkedEntity>> ingestion) {
+        try {
+            Map<String, LinkedEntity> result = ingestion.get();
+            LOGGER.info("[Ingestion finished] Ingested file {}", source);
+            return new FileResult(source, result, null);
+        } catch (Exception e) {
+            String error = e.getLocalizedMessage() == null ? e.getClass().getSimpleName() : e.getLocalizedMessage();
+            LOGGER.error("[ERROR] Ingestion of file {} failed: {}", source, error);
+            listener.fileFailed(source, error);
+            return new FileResult(source, Map.of(), error);
+        }
+    }
+
+    private static int parseConcurrency(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid INGESTOR_FILE_CONCURRENCY value {}, using the default", value);
+        }
+        return 8;
+    }
+}
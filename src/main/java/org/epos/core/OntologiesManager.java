@@ -8,7 +8,6 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.List;
@@ -27,9 +26,9 @@ public class OntologiesManager {
             if(ontologies.getName().equals(name)) existingOntology = ontologies;
         }
 
-        URL url = new URL(ontologyURL);
         StringBuilder resultStringBuilder = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(url.openStream()))) {
+        try (SourceFetcher.Resource resource = SourceFetcher.get().open(ontologyURL);
+             BufferedReader br = new BufferedReader(new InputStreamReader(resource.content(), StandardCharsets.UTF_8))) {
             String line;
             while ((line = br.readLine()) != null) {
                 resultStringBuilder.append(line).append("\n");
@@ -44,6 +43,18 @@ public class OntologiesManager {
         ont.setContent(encoded);
 
         EposDataModelDAO.getInstance().updateObject(ont);
+
+        /** KEEP THE PARSED MAPPING MODEL IN SYNC WITH THE NEW VERSION **/
+        if("MAPPING".equals(type)) {
+            try {
+                MappingModelCache.refresh(name, encoded);
+            } catch (Exception e) {
+                LOGGER.error("Unable to parse mapping ontology {}: {}", name, e.getLocalizedMessage());
+                MappingModelCache.evict(name);
+            }
+        } else {
+            MappingModelCache.evict(name);
+        }
     }
 
     public static List retrieveOntologies() {
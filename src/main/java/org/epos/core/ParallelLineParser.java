@@ -0,0 +1,159 @@
+package org.epos.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parser for the line-based syntaxes (N-Triples, N-Quads).
+ * The document is cut into chunks of whole lines, which are parsed on a shared pool while the next chunks
+ * are read; the parsed chunks are then sent to the sink in document order, so the result is the same as a
+ * sequential parse. Blank node labels are kept as given by the chunk parsers and mapped to fresh blank
+ * nodes per document, so a label used in several chunks is the same node.
+ */
+public class ParallelLineParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelLineParser.class);
+
+    /** Number of parser threads shared by all ingestions, 1 disables the parallel parsing **/
+    private static final int PARSER_THREADS = parseThreads(System.getenv("INGESTOR_PARSER_THREADS"));
+
+    private static final int CHUNK_LINES = 20000;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(PARSER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "ingestion-parser");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** statements of the chunk in line order, triples held as quads of the generated default graph **/
+    private record Chunk(long firstLine, List<Quad> quads) {}
+
+    public static boolean accepts(Lang lang) {
+        return PARSER_THREADS > 1 && (Lang.NTRIPLES.equals(lang) || Lang.NQUADS.equals(lang));
+    }
+
+    /**
+     * Parses the document into the sink, the stream is not closed.
+     *
+     * @throws RiotException on a syntax error, with the line number in the document
+     */
+    public static void parse(InputStream content, Lang lang, StreamRDF sink) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8), 1 << 16);
+        Map<String, Node> blankNodes = new HashMap<>();
+        /** bounds the chunks held in memory, parsed or waiting for a parser **/
+        int maxPending = PARSER_THREADS * 2;
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+
+        sink.start();
+        try {
+            long lineNumber = 1;
+            StringBuilder chunk = new StringBuilder();
+            int lines = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                chunk.append(line).append('\n');
+                if (++lines == CHUNK_LINES) {
+                    pending.add(submit(chunk.toString(), lineNumber, lang));
+                    lineNumber += lines;
+                    chunk.setLength(0);
+                    lines = 0;
+                    if (pending.size() >= maxPending) emit(pending.poll(), lang, blankNodes, sink);
+                }
+            }
+            if (lines > 0) pending.add(submit(chunk.toString(), lineNumber, lang));
+            while (!pending.isEmpty()) emit(pending.poll(), lang, blankNodes, sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        /** only a completely parsed document is finished, as the sequential parsers do **/
+        sink.finish();
+    }
+
+    private static Future<Chunk> submit(String text, long firstLine, Lang lang) {
+        return EXECUTOR.submit(() -> {
+            List<Quad> quads = new ArrayList<>();
+            try {
+                RDFParser.create().fromString(text).lang(lang)
+                        .labelToNode(LabelToNode.createUseLabelAsGiven())
+                        .parse(new StreamRDFBase() {
+                            @Override
+                            public void triple(Triple triple) {
+                                quads.add(Quad.create(Quad.defaultGraphNodeGenerated, triple));
+                            }
+
+                            @Override
+                            public void quad(Quad quad) {
+                                quads.add(quad);
+                            }
+                        });
+            } catch (RiotException e) {
+                throw new RiotException("Error in the chunk starting at line " + firstLine + ": " + e.getMessage(), e);
+            }
+            return new Chunk(firstLine, quads);
+        });
+    }
+
+    /** N-Triples chunks are sent as triples and N-Quads ones as quads, as the sequential parsers do **/
+    private static void emit(Future<Chunk> future, Lang lang, Map<String, Node> blankNodes, StreamRDF sink) {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RiotException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new RiotException(e.getCause());
+        }
+        boolean triples = Lang.NTRIPLES.equals(lang);
+        for (Quad quad : chunk.quads()) {
+            Node subject = scope(quad.getSubject(), blankNodes);
+            Node object = scope(quad.getObject(), blankNodes);
+            if (triples) sink.triple(Triple.create(subject, quad.getPredicate(), object));
+            else sink.quad(Quad.create(scope(quad.getGraph(), blankNodes), subject, quad.getPredicate(), object));
+        }
+        LOGGER.trace("Parsed the chunk starting at line {}", chunk.firstLine());
+    }
+
+    /** Labels as given are the same in every document, they are replaced by blank nodes of this document **/
+    private static Node scope(Node node, Map<String, Node> blankNodes) {
+        if (node == null || !node.isBlank()) return node;
+        return blankNodes.computeIfAbsent(node.getBlankNodeLabel(), label -> NodeFactory.createBlankNode());
+    }
+
+    private static int parseThreads(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid INGESTOR_PARSER_THREADS value {}, using the default", value);
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,78 @@
+package org.epos.core;
+
+import java.io.InputStream;
+import java.util.Set;
+
+import org.apache.jena.atlas.web.ContentType;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.Quad;
+
+/**
+ * Selection of the RDF syntax of a metadata document and parsing into a {@link StreamRDF}.
+ * The syntax is taken from the content type when it names an RDF syntax, then from the file extension,
+ * Turtle being the default. N-Triples and N-Quads documents are parsed in parallel chunks by the
+ * {@link ParallelLineParser}; quads of named graphs are ingested as triples, like the default graph.
+ */
+public class RDFSyntax {
+
+    /** Syntaxes accepted for ingestion **/
+    public static final Set<Lang> SUPPORTED = Set.of(Lang.TURTLE, Lang.NTRIPLES, Lang.NQUADS, Lang.JSONLD,
+            Lang.RDFXML, Lang.TRIG, Lang.RDFTHRIFT);
+
+    /** Generic content types that say nothing about the syntax (text/plain is often served for .ttl files) **/
+    private static final Set<String> GENERIC_CONTENT_TYPES = Set.of("text/plain", "application/octet-stream",
+            "application/x-www-form-urlencoded", "application/gzip", "application/zip", "application/x-tar");
+
+    /**
+     * @param contentType the declared content type, may be null
+     * @param name        the document URL or file name, may be null
+     * @return the syntax of the document
+     */
+    public static Lang detect(String contentType, String name) {
+        if (contentType != null && !contentType.isBlank()) {
+            String mediaType = ContentType.create(contentType).getContentTypeStr().toLowerCase();
+            if (!GENERIC_CONTENT_TYPES.contains(mediaType)) {
+                Lang lang = RDFLanguages.contentTypeToLang(mediaType);
+                if (lang != null && SUPPORTED.contains(lang)) return lang;
+            }
+        }
+        if (name != null) {
+            /** query strings and compression suffixes do not tell the syntax **/
+            String fileName = name.replaceFirst("[?#].*$", "").replaceFirst("\\.(gz|zst)$", "");
+            Lang lang = RDFLanguages.filenameToLang(fileName);
+            if (lang != null && SUPPORTED.contains(lang)) return lang;
+        }
+        return Lang.TURTLE;
+    }
+
+    /**
+     * Parses the document into the sink, the stream is not closed.
+     *
+     * @param base the base IRI of the document, may be null
+     */
+    public static void parse(InputStream content, String base, Lang lang, StreamRDF sink) {
+        if (ParallelLineParser.accepts(lang)) {
+            ParallelLineParser.parse(content, lang, sink);
+        } else {
+            RDFParser.source(content).base(base).lang(lang).parse(sink);
+        }
+    }
+
+    /**
+     * @return a sink adding every triple, whatever its graph, to the given graph
+     */
+    public static StreamRDF toGraph(Graph graph) {
+        return new StreamRDFWrapper(StreamRDFLib.graph(graph)) {
+            @Override
+            public void quad(Quad quad) {
+                triple(quad.asTriple());
+            }
+        };
+    }
+}
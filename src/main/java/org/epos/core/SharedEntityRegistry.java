@@ -0,0 +1,88 @@
+package org.epos.core;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run-scoped registry of the shared entities (organizations, persons, contact points, categories)
+ * written by an ingestion of several files.
+ * The first file persisting a shared entity claims its UID; the other files of the run carrying the same
+ * content reuse the created entity instead of writing it again. A copy with a different content is
+ * written, as it would be without the registry. Files of a run may be persisted concurrently.
+ * A file waits at most INGESTOR_SHARED_ENTITY_TIMEOUT seconds for a claimed entity; when the claiming
+ * file fails, times out or could not create it, the waiting file writes its own copy.
+ */
+public class SharedEntityRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedEntityRegistry.class);
+
+    private static final long TIMEOUT_SECONDS = parseTimeout(System.getenv("INGESTOR_SHARED_ENTITY_TIMEOUT"));
+
+    private record Claim(String hash, CompletableFuture<LinkedEntity> created) {}
+
+    private final Map<String, Claim> claims = new ConcurrentHashMap<>();
+
+    /**
+     * @return null when the caller has to persist the entity and then call {@link #created}, otherwise the
+     *         entity written (or being written) by another file of the run
+     */
+    CompletableFuture<LinkedEntity> claim(EPOSDataModelEntity entity, String hash) {
+        Claim claim = new Claim(hash, new CompletableFuture<>());
+        Claim existing = claims.putIfAbsent(entity.getUid(), claim);
+        if (existing == null || !existing.hash().equals(hash)) return null;
+        return existing.created();
+    }
+
+    /**
+     * Publishes the outcome of a claimed entity, null when it could not be created.
+     * Entities written without a claim (a copy with a different content) are ignored.
+     */
+    void created(EPOSDataModelEntity entity, String hash, LinkedEntity le) {
+        Claim claim = claims.get(entity.getUid());
+        if (claim != null && claim.hash().equals(hash)) claim.created().complete(le);
+    }
+
+    /**
+     * Publishes the failure of the file that claimed the entity, the files waiting for it write it themselves.
+     */
+    void failed(EPOSDataModelEntity entity, String hash, Throwable failure) {
+        Claim claim = claims.get(entity.getUid());
+        if (claim != null && claim.hash().equals(hash)) claim.created().completeExceptionally(failure);
+    }
+
+    /**
+     * @return the entity written by another file, null when its creation failed or did not end in time
+     */
+    static LinkedEntity await(CompletableFuture<LinkedEntity> created) {
+        try {
+            return created.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared entity", e);
+        } catch (ExecutionException e) {
+            LOGGER.debug("Shared entity not created by the claiming file: {}", e.getCause().getLocalizedMessage());
+            return null;
+        } catch (TimeoutException e) {
+            LOGGER.warn("Shared entity not created by the claiming file within {} seconds", TIMEOUT_SECONDS);
+            return null;
+        }
+    }
+
+    private static long parseTimeout(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid INGESTOR_SHARED_ENTITY_TIMEOUT value {}, using the default", value);
+        }
+        return 600;
+    }
+}
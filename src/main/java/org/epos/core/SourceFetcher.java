@@ -0,0 +1,305 @@
+package org.epos.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.jena.atlas.web.TypedInputStream;
+import org.apache.jena.riot.system.stream.StreamManager;
+import org.apache.jena.shared.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared fetch layer for the remote metadata files, URL lists and ontologies.
+ * HTTP(S) URLs go through one pooled {@link HttpClient} with timeouts and gzip transfer; responses
+ * carrying an ETag or a Last-Modified header are kept in an on-disk cache keyed by URL and revalidated
+ * with a conditional GET, so an unchanged file costs a 304. Other URLs (files, classpath) are opened
+ * through the Jena {@link StreamManager}.
+ *
+ * A cache entry is a single file: the response headers we need, an empty line, then the body. Entries
+ * are written to a temporary file and moved in place, and the least recently used ones are removed
+ * when the cache grows over its limit. An entry is opened before it is revalidated, and a stored body
+ * before it is moved in place, so a concurrent eviction or replacement never removes a body being served.
+ */
+public class SourceFetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceFetcher.class);
+
+    private static final String ACCEPT = "text/turtle, application/n-triples, application/n-quads, application/ld+json, "
+            + "application/rdf+xml, application/trig, text/plain;q=0.5, */*;q=0.1";
+
+    private static final SourceFetcher SHARED = new SourceFetcher(
+            parseLong("INGESTOR_HTTP_CONNECT_TIMEOUT", 10),
+            parseLong("INGESTOR_HTTP_REQUEST_TIMEOUT", 120),
+            cacheDirectory(System.getenv("INGESTOR_HTTP_CACHE_DIR")),
+            parseLong("INGESTOR_HTTP_CACHE_MAX_MB", 1024) * 1024 * 1024);
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final Path cacheDirectory;
+    private final long cacheMaxBytes;
+
+    /** Headers of a cache entry, and its body positioned after them **/
+    private record CacheEntry(Map<String, String> headers, InputStream body) {}
+
+    /** A fetched document, the content must be closed **/
+    public record Resource(InputStream content, String contentType, boolean fromCache) implements AutoCloseable {
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    /**
+     * @param connectTimeoutSeconds  timeout to open a connection
+     * @param requestTimeoutSeconds  timeout to receive the response headers
+     * @param cacheDirectory         directory of the cache, null disables it
+     * @param cacheMaxBytes          size over which the least recently used entries are removed
+     */
+    public SourceFetcher(long connectTimeoutSeconds, long requestTimeoutSeconds, Path cacheDirectory, long cacheMaxBytes) {
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.requestTimeout = Duration.ofSeconds(requestTimeoutSeconds);
+        this.cacheDirectory = cacheDirectory;
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+
+    /**
+     * @return the fetcher shared by the ingestion and the ontology management
+     */
+    public static SourceFetcher get() {
+        return SHARED;
+    }
+
+    /**
+     * @throws NotFoundException when the document does not exist
+     * @throws IOException       when the document cannot be retrieved
+     */
+    public Resource open(String url) throws IOException {
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            TypedInputStream in = StreamManager.get().open(url);
+            if (in == null) throw new NotFoundException(url);
+            return new Resource(in, in.getContentType(), false);
+        }
+
+        Path entry = cacheDirectory == null ? null : cacheDirectory.resolve(DigestUtils.sha256Hex(url));
+        /** opened before the request, a 304 is then served from it even if the entry is evicted or replaced meanwhile **/
+        CacheEntry cached = entry == null ? null : openEntry(entry);
+        try {
+            return fetch(url, entry, cached);
+        } catch (IOException | RuntimeException e) {
+            if (cached != null) cached.body().close();
+            throw e;
+        }
+    }
+
+    private Resource fetch(String url, Path entry, CacheEntry cached) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Accept", ACCEPT)
+                .header("Accept-Encoding", "gzip");
+        if (cached != null) {
+            if (cached.headers().containsKey("etag")) request.header("If-None-Match", cached.headers().get("etag"));
+            if (cached.headers().containsKey("last-modified")) request.header("If-Modified-Since", cached.headers().get("last-modified"));
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        }
+
+        if (response.statusCode() == 304 && cached != null) {
+            response.body().close();
+            LOGGER.debug("{} not modified, served from the cache", url);
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (NoSuchFileException e) {
+                LOGGER.debug("Cache entry of {} evicted while revalidating", url);
+            }
+            return new Resource(cached.body(), cached.headers().get("content-type"), true);
+        }
+        if (cached != null) cached.body().close();
+        if (response.statusCode() == 404 || response.statusCode() == 410) {
+            response.body().close();
+            throw new NotFoundException(url);
+        }
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode() + " fetching " + url);
+        }
+
+        InputStream body = response.body();
+        if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(""))) {
+            body = new GZIPInputStream(body, 65536);
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        response.headers().firstValue("ETag").ifPresent(value -> headers.put("etag", value));
+        response.headers().firstValue("Last-Modified").ifPresent(value -> headers.put("last-modified", value));
+        if (entry == null || headers.isEmpty()) {
+            /** nothing to revalidate with, the body is streamed without being cached **/
+            return new Resource(body, contentType, false);
+        }
+        if (contentType != null) headers.put("content-type", contentType);
+        try (InputStream in = body) {
+            return new Resource(store(entry, headers, in), contentType, false);
+        }
+    }
+
+    /**
+     * @return the whole document as UTF-8 text
+     */
+    public String readString(String url) throws IOException {
+        try (Resource resource = open(url)) {
+            return new String(resource.content().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** @return the stored body, opened before the entry is moved in place so that an eviction cannot remove it first **/
+    private InputStream store(Path entry, Map<String, String> headers, InputStream body) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        Path temporary = Files.createTempFile(cacheDirectory, "fetch", ".tmp");
+        InputStream stored = null;
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                StringBuilder header = new StringBuilder();
+                headers.forEach((name, value) -> header.append(name).append(": ").append(value).append('\n'));
+                out.write(header.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+                body.transferTo(out);
+            }
+            stored = openBody(temporary);
+            Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            if (stored != null) stored.close();
+            throw e;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        evict(entry);
+        return stored;
+    }
+
+    /** @return the stored headers of the entry and its body, null when there is no readable entry **/
+    private static CacheEntry openEntry(Path entry) {
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(Files.newInputStream(entry), 65536);
+            return new CacheEntry(parseHeaders(in), in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Unreadable cache entry {}: {}", entry, e.getLocalizedMessage());
+            closeQuietly(in);
+            return null;
+        }
+    }
+
+    private static InputStream openBody(Path entry) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(entry), 65536);
+        try {
+            parseHeaders(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to close a cache entry: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static Map<String, String> parseHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != -1; b = in.read()) {
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            if (line.size() == 0) return headers;
+            String header = line.toString(StandardCharsets.UTF_8);
+            int separator = header.indexOf(": ");
+            if (separator > 0) headers.put(header.substring(0, separator), header.substring(separator + 2));
+            line.reset();
+        }
+        throw new IOException("Truncated cache entry");
+    }
+
+    /** Removes the least recently used entries, except the one just stored, while the cache is over its limit **/
+    private synchronized void evict(Path stored) {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            List<Path> entries = files.filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .sorted(Comparator.comparing(SourceFetcher::lastModified))
+                    .collect(Collectors.toList());
+            long size = 0;
+            for (Path file : entries) size += Files.size(file);
+            for (Path file : entries) {
+                if (size <= cacheMaxBytes) break;
+                if (file.equals(stored)) continue;
+                size -= Files.size(file);
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to trim the fetch cache: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Path cacheDirectory(String value) {
+        if ("none".equalsIgnoreCase(value)) return null;
+        if (value != null && !value.isBlank()) return Paths.get(value);
+        return Paths.get(System.getProperty("java.io.tmpdir"), "ingestor-fetch-cache");
+    }
+
+    private static long parseLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} value {}, using the default", name, value);
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,248 @@
+package org.epos.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.epos.eposdatamodel.EPOSDataModelEntity;
+import org.epos.eposdatamodel.Group;
+import org.epos.eposdatamodel.IriTemplate;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.epos.eposdatamodel.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import model.StatusType;
+
+/**
+ * Streaming ingestion of a metadata file, fed by the RIOT parser.
+ * Triples are grouped by IRI subject: when the parser moves to the next IRI subject, the previous one
+ * and the blank nodes reachable from it are mapped to entity beans and dropped from the window.
+ * Mapped entities are persisted in batches of INGESTOR_STREAMING_BATCH entities, so only the current
+ * subject, the pending batch, the UID/type of the persisted entities and the mapped blank nodes are held in memory.
+ * Links to entities not seen yet go through the deferred-link table of the {@link IngestionContext}.
+ *
+ * The input is expected to be grouped by subject, with blank nodes next to the subject using them,
+ * as written by Turtle and N-Triples serializers. An IRI subject is completed by its later triples until its
+ * batch is persisted; a subject appearing again after that, or a blank node appearing after the subject using
+ * it was mapped, fails the file, which has to be ingested without INGESTOR_STREAMING.
+ */
+public class StreamingIngestion implements StreamRDF {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamingIngestion.class);
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getenv("INGESTOR_STREAMING"));
+
+    private static final int BATCH_SIZE = parseBatchSize(System.getenv("INGESTOR_STREAMING_BATCH"));
+
+    private final MappingIndex mappingIndex;
+    private final BeansCreation beansCreation = new BeansCreation();
+    private final IngestionContext context = new IngestionContext(true);
+    private final List<Group> selectedGroup;
+    private final StatusType status;
+    private final String editorId;
+    private final ChangeDetection.Snapshot snapshot;
+    private final SharedEntityRegistry registry;
+    private final String salt = RandomStringUtils.randomAlphanumeric(17).toUpperCase();
+    private final Map<String, LinkedEntity> persisted = new LinkedHashMap<>();
+
+    /** triples of the current IRI subject and of the blank nodes not yet attached to a subject **/
+    private final Graph window = GraphFactory.createDefaultGraph();
+    private Node currentSubject;
+    /** blank nodes already mapped with the subject using them, their later triples would be lost **/
+    private final Set<Node> attachedBlankNodes = new HashSet<>();
+    private long triples;
+    private int mapped;
+
+    public StreamingIngestion(MappingIndex mappingIndex, List<Group> selectedGroup, StatusType status, String editorId) {
+        this(mappingIndex, selectedGroup, status, editorId, null, null);
+    }
+
+    /**
+     * @param snapshot the hashes of the previous ingestion of the source, null to persist every entity
+     * @param registry the shared entities written by the other files of the run, may be null
+     */
+    public StreamingIngestion(MappingIndex mappingIndex, List<Group> selectedGroup, StatusType status, String editorId, ChangeDetection.Snapshot snapshot, SharedEntityRegistry registry) {
+        this.mappingIndex = mappingIndex;
+        this.selectedGroup = selectedGroup;
+        this.status = status;
+        this.editorId = editorId;
+        this.snapshot = snapshot;
+        this.registry = registry;
+    }
+
+    /**
+     * @return true when INGESTOR_STREAMING is set, URL sources are then ingested without building a model
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        triples++;
+        Node subject = triple.getSubject();
+        if (subject.isBlank() && attachedBlankNodes.contains(subject)) {
+            throw new IllegalStateException("Blank node " + subject + " appears after the subject using it was mapped, the input is not grouped by subject");
+        }
+        if (subject.isURI()) {
+            if (currentSubject != null && !currentSubject.equals(subject)) processSubject(currentSubject);
+            currentSubject = subject;
+        }
+        window.add(triple);
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void base(String base) {
+    }
+
+    @Override
+    public void prefix(String prefix, String iri) {
+    }
+
+    @Override
+    public void finish() {
+        if (currentSubject != null) processSubject(currentSubject);
+        currentSubject = null;
+        /** blank nodes not reachable from any IRI subject, e.g. top level [] a dcat:Dataset **/
+        if (!window.isEmpty()) {
+            map(window);
+            window.clear();
+        }
+    }
+
+    public long getTriples() {
+        return triples;
+    }
+
+    public int getMapped() {
+        return mapped;
+    }
+
+    /**
+     * Persists what is left once the parser has finished, operations are wired to their IRI templates first.
+     *
+     * @return the created entities of the whole file by UID
+     */
+    public Map<String, LinkedEntity> complete() {
+        for (Operation operation : context.getAll(Operation.class)) {
+            if (operation.getIriTemplate() != null
+                    && context.get(operation.getIriTemplate().getUid()) instanceof IriTemplate template) {
+                operation.setMapping(template.getMappings());
+                operation.setTemplate(template.getTemplate());
+            }
+        }
+        new ArrayList<>(context.getAll(IriTemplate.class)).forEach(context::remove);
+        persist(context.drain(entity -> true));
+        if (snapshot != null) snapshot.complete();
+        return persisted;
+    }
+
+    private void processSubject(Node subject) {
+        Graph unit = GraphFactory.createDefaultGraph();
+        Set<Node> visited = new HashSet<>();
+        ArrayDeque<Node> toVisit = new ArrayDeque<>();
+        toVisit.add(subject);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.poll();
+            if (!visited.add(node)) continue;
+            if (node.isBlank()) attachedBlankNodes.add(node);
+            for (ExtendedIterator<Triple> it = window.find(node, Node.ANY, Node.ANY); it.hasNext(); ) {
+                Triple triple = it.next();
+                unit.add(triple);
+                if (triple.getObject().isBlank()) toVisit.add(triple.getObject());
+            }
+        }
+        unit.find().forEachRemaining(window::delete);
+        map(unit);
+
+        /** operations and IRI templates are kept until the end, they are wired together before persisting **/
+        if (context.size() - retained() >= BATCH_SIZE) {
+            persist(context.drain(entity -> !isRetained(entity)));
+        }
+    }
+
+    private int retained() {
+        return context.getAll(Operation.class).size() + context.getAll(IriTemplate.class).size();
+    }
+
+    private static boolean isRetained(EPOSDataModelEntity entity) {
+        return entity instanceof Operation || entity instanceof IriTemplate;
+    }
+
+    /** Creates (or completes) the entities typed in the unit and applies their mapped properties **/
+    private void map(Graph unit) {
+        Model unitModel = ModelFactory.createModelForGraph(unit);
+        Map<Node, EPOSDataModelEntity> entities = new LinkedHashMap<>();
+        for (StmtIterator it = unitModel.listStatements(null, RDF.type, (RDFNode) null); it.hasNext(); ) {
+            Statement statement = it.next();
+            String uid = statement.getSubject().toString();
+            EPOSDataModelEntity entity = context.get(uid);
+            if (entity == null) {
+                if (context.isDrained(uid)) throw reappeared(uid);
+                entity = beansCreation.getEPOSDataModelClass(mappingIndex.retrieveEDMMappedClass(statement.getObject().toString()), uid, selectedGroup, editorId);
+                if (entity == null) continue;
+                context.add(entity);
+                mapped++;
+            }
+            entities.put(statement.getSubject().asNode(), entity);
+        }
+        /** an IRI subject split over several groups is completed with its later triples **/
+        for (ExtendedIterator<Triple> it = unit.find(); it.hasNext(); ) {
+            Node subject = it.next().getSubject();
+            if (entities.containsKey(subject)) continue;
+            String uid = unitModel.asRDFNode(subject).toString();
+            EPOSDataModelEntity entity = context.get(uid);
+            if (entity != null) entities.put(subject, entity);
+            else if (context.isDrained(uid)) throw reappeared(uid);
+        }
+        MetadataPopulator.exploreEntities(mappingIndex, beansCreation, unit, entities, context, selectedGroup, editorId);
+    }
+
+    /** its new triples would replace the persisted entity, or be dropped **/
+    private static IllegalStateException reappeared(String uid) {
+        return new IllegalStateException("Subject " + uid + " appears again after being persisted, the input is not grouped by subject");
+    }
+
+    private void persist(List<EPOSDataModelEntity> entities) {
+        if (entities.isEmpty()) return;
+        LOGGER.debug("Persisting a batch of {} streamed entities", entities.size());
+        persisted.putAll(EntityPersister.persist(entities, selectedGroup, status, salt, snapshot, registry));
+    }
+
+    private static int parseBatchSize(String value) {
+        try {
+            if (value != null && !value.isBlank()) return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid INGESTOR_STREAMING_BATCH value {}, using the default", value);
+        }
+        return 5000;
+    }
+}
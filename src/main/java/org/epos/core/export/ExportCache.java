@@ -0,0 +1,348 @@
+package org.epos.core.export;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.jena.rdf.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import metadataapis.EntityNames;
+
+/**
+ * Cache of the serialised exports, keyed by entity type, sorted UIDs, format and version.
+ * Every key is tagged with the catalogue generation, which is advanced by each ingestion writing to the
+ * database and by the cache invalidation endpoint, so an entry is never served once the catalogue changed.
+ * Serialisations are written to INGESTOR_EXPORT_CACHE_DIR and the ones fitting in INGESTOR_EXPORT_CACHE_MAX_MB
+ * are also held in memory; both tiers drop their least recently used entries when over their limit.
+ * Identical requests arriving while an export is being built wait for it instead of building it again.
+ *
+ * The generation is local to the instance: ingestions run by other instances are picked up through the
+ * invalidation endpoint.
+ */
+public class ExportCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExportCache.class);
+
+	private static final byte[] EMPTY = new byte[0];
+
+	private static final ExportCache SHARED = new ExportCache(
+			parseLong("INGESTOR_EXPORT_CACHE_MAX_MB", 256) * 1024 * 1024,
+			cacheDirectory(System.getenv("INGESTOR_EXPORT_CACHE_DIR")),
+			parseLong("INGESTOR_EXPORT_CACHE_DIR_MAX_MB", 4096) * 1024 * 1024);
+
+	/** An export ready to be written to the response **/
+	public interface Result {
+
+		/** @return true when there is no entity to export **/
+		boolean isEmpty();
+
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	/** A stored serialisation, its content when held in memory, otherwise its file **/
+	private record Entry(byte[] content, Path file) {}
+
+	private final long memoryMaxBytes;
+	private final Path directory;
+	private final long directoryMaxBytes;
+
+	/** entries of the files left by a previous process are never looked up, its generations started again **/
+	private final String epoch = UUID.randomUUID().toString();
+	private final AtomicLong generation = new AtomicLong();
+
+	private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryBytes;
+
+	private final Map<String, CompletableFuture<Entry>> building = new ConcurrentHashMap<>();
+
+	/**
+	 * @param memoryMaxBytes     size of the serialisations held in memory, 0 keeps none
+	 * @param directory          directory of the serialisations, null keeps them in memory only
+	 * @param directoryMaxBytes  size over which the least recently used files are removed
+	 */
+	public ExportCache(long memoryMaxBytes, Path directory, long directoryMaxBytes) {
+		this.memoryMaxBytes = memoryMaxBytes;
+		this.directory = directory;
+		this.directoryMaxBytes = directoryMaxBytes;
+	}
+
+	/**
+	 * @return the cache used by the export endpoint
+	 */
+	public static ExportCache get() {
+		return SHARED;
+	}
+
+	/**
+	 * Moves to a new catalogue generation, the exports built so far are no longer served.
+	 */
+	public void advance() {
+		long current = generation.incrementAndGet();
+		synchronized (this) {
+			memory.clear();
+			memoryBytes = 0;
+		}
+		if (directory != null) deleteEntries();
+		LOGGER.debug("Catalogue generation {}, export cache cleared", current);
+	}
+
+	/**
+	 * @param builder  maps the entities to export, returns null when there is none
+	 * @return the cached serialisation, or the one built by {@code builder} when missing
+	 */
+	public Result export(EntityNames entityType, List<String> ids, String format, EPOSVersion version, Supplier<Model> builder) throws IOException {
+		if (memoryMaxBytes <= 0 && directory == null) {
+			/** cache disabled, the model is serialised straight to the response **/
+			Model model = builder.get();
+			if (model == null || model.isEmpty()) return bytes(EMPTY);
+			return new Result() {
+				@Override
+				public boolean isEmpty() {
+					return false;
+				}
+
+				@Override
+				public void writeTo(OutputStream out) throws IOException {
+					MetadataExporter.write(model, format, out);
+				}
+			};
+		}
+
+		String key = key(entityType, ids, format, version);
+		Result cached = lookup(key);
+		if (cached != null) {
+			LOGGER.debug("Export {} served from the cache", key);
+			return cached;
+		}
+
+		CompletableFuture<Entry> built = new CompletableFuture<>();
+		CompletableFuture<Entry> running = building.putIfAbsent(key, built);
+		if (running != null) {
+			Result result = open(await(running));
+			if (result != null) return result;
+			/** removed from the disk in between, built again **/
+			return open(build(key, format, builder));
+		}
+		try {
+			Entry entry = build(key, format, builder);
+			built.complete(entry);
+			return open(entry);
+		} catch (IOException | RuntimeException e) {
+			built.completeExceptionally(e);
+			throw e;
+		} finally {
+			building.remove(key, built);
+		}
+	}
+
+	private String key(EntityNames entityType, List<String> ids, String format, EPOSVersion version) {
+		String uids = ids == null ? "" : String.join(",", new TreeSet<>(ids));
+		return DigestUtils.sha256Hex(String.join("\n", epoch, Long.toString(generation.get()),
+				entityType == null ? "*" : entityType.name(), uids, format.toLowerCase(),
+				(version == null ? EPOSVersion.V1 : version).name()));
+	}
+
+	private Result lookup(String key) throws IOException {
+		byte[] content;
+		synchronized (this) {
+			content = memory.get(key);
+		}
+		if (content != null) return bytes(content);
+		if (directory == null) return null;
+
+		Path file = directory.resolve(key);
+		try {
+			long size = Files.size(file);
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			if (size <= memoryMaxBytes) {
+				content = Files.readAllBytes(file);
+				remember(key, content);
+				return bytes(content);
+			}
+			return open(new Entry(null, file));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	private Entry build(String key, String format, Supplier<Model> builder) throws IOException {
+		Model model = builder.get();
+		if (model == null || model.isEmpty()) {
+			remember(key, EMPTY);
+			return new Entry(EMPTY, null);
+		}
+		if (directory == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			MetadataExporter.write(model, format, out);
+			byte[] content = out.toByteArray();
+			remember(key, content);
+			return new Entry(content, null);
+		}
+
+		Files.createDirectories(directory);
+		Path file = directory.resolve(key);
+		Path temporary = Files.createTempFile(directory, "export", ".tmp");
+		try {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), 65536)) {
+				MetadataExporter.write(model, format, out);
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		evict(file);
+		if (Files.size(file) <= memoryMaxBytes) {
+			byte[] content = Files.readAllBytes(file);
+			remember(key, content);
+			return new Entry(content, file);
+		}
+		return new Entry(null, file);
+	}
+
+	/** @return the result of the entry, null when its file was removed **/
+	private static Result open(Entry entry) throws IOException {
+		if (entry.content() != null) return bytes(entry.content());
+		InputStream in;
+		try {
+			/** opened now, the file may be evicted before the response is written **/
+			in = new BufferedInputStream(Files.newInputStream(entry.file()), 65536);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		return new Result() {
+			@Override
+			public boolean isEmpty() {
+				return false;
+			}
+
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				try (in) {
+					in.transferTo(out);
+				}
+			}
+		};
+	}
+
+	private static Result bytes(byte[] content) {
+		return new Result() {
+			@Override
+			public boolean isEmpty() {
+				return content.length == 0;
+			}
+
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				out.write(content);
+			}
+		};
+	}
+
+	private static Entry await(CompletableFuture<Entry> running) throws IOException {
+		try {
+			return running.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for an identical export", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+			if (e.getCause() instanceof IOException io) throw io;
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/** Holds the content in memory, removing the least recently used ones while over the limit **/
+	private synchronized void remember(String key, byte[] content) {
+		if (content.length > memoryMaxBytes) return;
+		byte[] previous = memory.put(key, content);
+		memoryBytes += content.length - (previous == null ? 0 : previous.length);
+		Iterator<byte[]> eldest = memory.values().iterator();
+		while (memoryBytes > memoryMaxBytes && eldest.hasNext()) {
+			byte[] removed = eldest.next();
+			if (removed == content) continue;
+			memoryBytes -= removed.length;
+			eldest.remove();
+		}
+	}
+
+	/** Removes the least recently used files, except the one just stored, while the directory is over its limit **/
+	private synchronized void evict(Path stored) {
+		try (Stream<Path> files = Files.list(directory)) {
+			List<Path> entries = files.filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+					.sorted(Comparator.comparing(ExportCache::lastModified))
+					.collect(Collectors.toList());
+			long size = 0;
+			for (Path file : entries) size += Files.size(file);
+			for (Path file : entries) {
+				if (size <= directoryMaxBytes) break;
+				if (file.equals(stored)) continue;
+				size -= Files.size(file);
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Unable to trim the export cache: {}", e.getLocalizedMessage());
+		}
+	}
+
+	private void deleteEntries() {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (!file.getFileName().toString().endsWith(".tmp")) Files.deleteIfExists(file);
+			}
+		} catch (NoSuchFileException e) {
+			LOGGER.debug("No export cache directory yet");
+		} catch (IOException e) {
+			LOGGER.warn("Unable to clear the export cache: {}", e.getLocalizedMessage());
+		}
+	}
+
+	private static FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	private static Path cacheDirectory(String value) {
+		if ("none".equalsIgnoreCase(value)) return null;
+		if (value != null && !value.isBlank()) return Paths.get(value);
+		return Paths.get(System.getProperty("java.io.tmpdir"), "ingestor-export-cache");
+	}
+
+	private static long parseLong(String name, long defaultValue) {
+		String value = System.getenv(name);
+		try {
+			if (value != null && !value.isBlank()) return Math.max(0, Long.parseLong(value.trim()));
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Invalid {} value {}, using the default", name, value);
+		}
+		return defaultValue;
+	}
+}
@@ -1,16 +1,29 @@
 package org.epos.core.export;
 
-import java.io.StringWriter;
-import java.lang.reflect.Method;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.jena.rdf.model.Model;
@@ -21,6 +34,7 @@ import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.epos.core.LinkSchema;
 import org.epos.core.export.mappers.AddressMapper;
 import org.epos.core.export.mappers.AttributionMapper;
 import org.epos.core.export.mappers.CategoryMapper;
@@ -45,10 +59,12 @@ import org.epos.core.export.mappers.SoftwareApplicationMapper;
 import org.epos.core.export.mappers.SoftwareSourceCodeMapper;
 import org.epos.core.export.mappers.WebServiceMapper;
 import org.epos.core.export.EPOSVersion;
+import org.epos.core.export.util.ExportOutputWriter;
 import org.epos.eposdatamodel.EPOSDataModelEntity;
 import org.epos.eposdatamodel.LinkedEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.StreamUtils;
 
 import abstractapis.AbstractAPI;
 import metadataapis.EntityNames;
@@ -60,6 +76,27 @@ public class MetadataExporter {
 
 	private static final Map<Class<?>, EntityMapper<?>> MAPPERS = new HashMap<>();
 
+	/** Threads mapping the root entities of an export, shared by all exports, 1 maps sequentially **/
+	private static final int EXPORT_THREADS = parseThreads(System.getenv("INGESTOR_EXPORT_THREADS"));
+
+	/** Below this number of root entities the export is mapped sequentially **/
+	private static final int PARALLEL_THRESHOLD = 256;
+
+	private static final ForkJoinPool EXPORT_POOL = new ForkJoinPool(EXPORT_THREADS);
+
+	/**
+	 * Concurrent readers of the linked entities of an export, shared by all exports, 1 (the default) reads
+	 * sequentially. db-api does not document its DAO as safe for concurrent use, so it must only be raised once
+	 * this has been verified against the deployed db-api version, as for INGESTOR_PERSISTENCE_THREADS.
+	 */
+	private static final int RESOLVE_THREADS = parseResolveThreads(System.getenv("INGESTOR_EXPORT_RESOLVE_THREADS"));
+
+	private static final ExecutorService RESOLVE_POOL = Executors.newFixedThreadPool(RESOLVE_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "export-resolver");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	static {
 		// Register all mappers
 		MAPPERS.put(org.epos.eposdatamodel.DataProduct.class, new DataProductMapper());
@@ -90,9 +127,9 @@ public class MetadataExporter {
 	 * Exports EPOS Data Model entities to RDF in the specified format.
 	 *
 	 * @param entityType The type of entities to export (null for all types)
-	 * @param format     The output format ("turtle" or "json-ld")
+	 * @param format     The output format ("turtle", "json-ld" or "n-triples")
 	 * @param ids        Specific entity IDs to export (null for all)
-	 * @param version    The EPOS-DCAT-AP version (default V3)
+	 * @param version    The EPOS-DCAT-AP version (default V1)
 	 * @return RDF content as string
 	 */
 	public static String exportToRDF(
@@ -100,15 +137,47 @@ public class MetadataExporter {
 			String format,
 			List<String> ids,
 			EPOSVersion version) {
-		long startedAt = System.currentTimeMillis();
+		format = checkFormat(format);
+		Model rdfModel = buildModel(entityType, ids, version);
+		if (rdfModel == null) {
+			return "";
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			write(rdfModel, format, out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toString(StandardCharsets.UTF_8);
+	}
 
+	/**
+	 * @return the format to use, turtle when none is given
+	 * @throws IllegalArgumentException when the format is not supported
+	 */
+	public static String checkFormat(String format) {
 		if (format == null || format.trim().isEmpty()) {
-			format = "turtle";
+			return "turtle";
 		}
-
-		if (!format.matches("(?i)(turtle|json-ld)")) {
-			throw new IllegalArgumentException("Format must be one of: turtle, json-ld");
+		if (!format.matches("(?i)(turtle|json-ld|n-triples)")) {
+			throw new IllegalArgumentException("Format must be one of: turtle, json-ld, n-triples");
 		}
+		return format;
+	}
+
+	/**
+	 * Maps the entities to export into an RDF model.
+	 *
+	 * @param entityType The type of entities to export (null for all types)
+	 * @param ids        Specific entity IDs to export (null for all)
+	 * @param version    The EPOS-DCAT-AP version (default V1)
+	 * @return the model, null when there is no entity to export
+	 */
+	public static Model buildModel(
+			EntityNames entityType,
+			List<String> ids,
+			EPOSVersion version) {
+		long startedAt = System.currentTimeMillis();
 
 		if (version == null) {
 			version = EPOSVersion.V1;
@@ -119,8 +188,8 @@ public class MetadataExporter {
 		}
 
 		try {
-			LOGGER.info("Starting new export for entity type '{}' in format '{}' and version '{}'",
-					entityType != null ? entityType : "all types", format, version);
+			LOGGER.info("Starting new export for entity type '{}' and version '{}'",
+					entityType != null ? entityType : "all types", version);
 
 			// 1. Retrieve entities from database
 			List<EPOSDataModelEntity> entities;
@@ -134,7 +203,7 @@ public class MetadataExporter {
 
 			if (entities.isEmpty()) {
 				LOGGER.info("No entities found for type: {}", entityType != null ? entityType : "all types");
-				return "";
+				return null;
 			}
 
 			entities = entities.stream().filter(entity -> entity != null).collect(Collectors.toList());
@@ -153,8 +222,8 @@ public class MetadataExporter {
 			setNamespacePrefixes(rdfModel);
 			rdfModel.removeNsPrefix("rdf");
 
-			// 4. Initialize resource cache
-			Map<String, Resource> resourceCache = new HashMap<>();
+			// 4. Initialize resource cache, shared by the mapping tasks
+			Map<String, Resource> resourceCache = Collections.synchronizedMap(new HashMap<>());
 
 			// 5. For each root entity, get mapper and call mapToRDF
 			List<EPOSDataModelEntity> rootEntities;
@@ -171,24 +240,10 @@ public class MetadataExporter {
 						.collect(Collectors.toList());
 			}
 
-			int processedCount = 0;
-			for (EPOSDataModelEntity entity : rootEntities) {
-				LOGGER.debug("Converting entity {} of {}: {}", ++processedCount, rootEntities.size(), entity.getUid());
-				@SuppressWarnings("unchecked")
-				EntityMapper<EPOSDataModelEntity> mapper = (EntityMapper<EPOSDataModelEntity>) MAPPERS
-						.get(entity.getClass());
-				if (mapper != null) {
-					switch (version) {
-						case V1:
-							mapper.exportToV1(entity, rdfModel, entityMap, resourceCache);
-							break;
-						case V3:
-							mapper.exportToV3(entity, rdfModel, entityMap, resourceCache);
-							break;
-					}
-				} else {
-					LOGGER.warn("No mapper found for entity type: {}", entity.getClass().getSimpleName());
-				}
+			if (EXPORT_THREADS > 1 && rootEntities.size() >= PARALLEL_THRESHOLD) {
+				mapInParallel(rootEntities, rdfModel, entityMap, resourceCache, version);
+			} else {
+				mapEntities(rootEntities, rdfModel, entityMap, resourceCache, version);
 			}
 
 			LOGGER.debug("Converted {} entities to RDF triples", rootEntities.size());
@@ -199,16 +254,7 @@ public class MetadataExporter {
 				LOGGER.debug("Filtered RDF model now has {} statements", rdfModel.size());
 			}
 
-			StringWriter writer = new StringWriter();
-			Lang lang = getLangForFormat(format);
-			RDFDataMgr.write(writer, rdfModel, lang);
-			String content = writer.toString();
-
-			content = cleanupPrefixes(content);
-
-			content = cleanupFiles(content);
-
-			return content;
+			return rdfModel;
 
 		} catch (IllegalArgumentException e) {
 			throw e;
@@ -217,8 +263,82 @@ public class MetadataExporter {
 			e.printStackTrace();
 			throw new RuntimeException("Export failed", e);
 		} finally {
-			LOGGER.info("Export completed in {} ms", System.currentTimeMillis() - startedAt);
+			LOGGER.info("Export model built in {} ms", System.currentTimeMillis() - startedAt);
+		}
+	}
+
+	/**
+	 * Maps the root entities on the export pool. Each partition is mapped into its own model, the shared
+	 * resource cache making sure a linked entity is mapped by a single task, and the partial models are then
+	 * added to the result. Blank nodes keep their identity when a graph is added to another, so a node created
+	 * by one task and referenced by another still designates the same resource.
+	 */
+	private static void mapInParallel(List<EPOSDataModelEntity> rootEntities, Model rdfModel,
+			Map<String, EPOSDataModelEntity> entityMap, Map<String, Resource> resourceCache, EPOSVersion version) {
+		int size = Math.max(1, (rootEntities.size() + EXPORT_THREADS * 4 - 1) / (EXPORT_THREADS * 4));
+		List<List<EPOSDataModelEntity>> partitions = new ArrayList<>();
+		for (int i = 0; i < rootEntities.size(); i += size) {
+			partitions.add(rootEntities.subList(i, Math.min(i + size, rootEntities.size())));
+		}
+		LOGGER.debug("Mapping {} root entities in {} partitions", rootEntities.size(), partitions.size());
+
+		List<Model> models;
+		try {
+			models = EXPORT_POOL.submit(() -> partitions.parallelStream().map(partition -> {
+				Model model = ModelFactory.createDefaultModel();
+				mapEntities(partition, model, entityMap, resourceCache, version);
+				return model;
+			}).collect(Collectors.toList())).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while mapping the export", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+			throw new IllegalStateException(e.getCause());
+		}
+		for (Model model : models) {
+			rdfModel.add(model);
+		}
+	}
+
+	private static void mapEntities(List<EPOSDataModelEntity> rootEntities, Model rdfModel,
+			Map<String, EPOSDataModelEntity> entityMap, Map<String, Resource> resourceCache, EPOSVersion version) {
+		for (EPOSDataModelEntity entity : rootEntities) {
+			LOGGER.debug("Converting entity {}", entity.getUid());
+			@SuppressWarnings("unchecked")
+			EntityMapper<EPOSDataModelEntity> mapper = (EntityMapper<EPOSDataModelEntity>) MAPPERS
+					.get(entity.getClass());
+			if (mapper != null) {
+				switch (version) {
+					case V1:
+						mapper.exportToV1(entity, rdfModel, entityMap, resourceCache);
+						break;
+					case V3:
+						mapper.exportToV3(entity, rdfModel, entityMap, resourceCache);
+						break;
+				}
+			} else {
+				LOGGER.warn("No mapper found for entity type: {}", entity.getClass().getSimpleName());
+			}
+		}
+	}
+
+	/**
+	 * Serialises the model to the stream, rewriting the Turtle prefixes and the "file:///" IRIs on the way.
+	 * The stream is flushed, not closed.
+	 *
+	 * @param format The output format ("turtle", "json-ld" or "n-triples")
+	 */
+	public static void write(Model rdfModel, String format, OutputStream out) throws IOException {
+		long startedAt = System.currentTimeMillis();
+		Lang lang = getLangForFormat(format);
+		Writer writer = new ExportOutputWriter(
+				new BufferedWriter(new OutputStreamWriter(StreamUtils.nonClosing(out), StandardCharsets.UTF_8), 65536),
+				Lang.TTL.equals(lang));
+		try (writer) {
+			RDFDataMgr.write(writer, rdfModel, lang);
 		}
+		LOGGER.info("Export written in {} ms", System.currentTimeMillis() - startedAt);
 	}
 
 	private static void setNamespacePrefixes(Model model) {
@@ -250,36 +370,13 @@ public class MetadataExporter {
 		String lowerFormat = format.toLowerCase();
 		if ("json-ld".equals(lowerFormat)) {
 			return Lang.JSONLD;
+		} else if ("n-triples".equals(lowerFormat)) {
+			return Lang.NTRIPLES;
 		} else {
 			return Lang.TTL;
 		}
 	}
 
-	private static String cleanupPrefixes(String content) {
-		// Only apply prefix cleanup for Turtle format
-		if (content.contains("@prefix") || content.contains("PREFIX")) {
-			StringBuilder sb = new StringBuilder();
-			boolean inPrefixes = true;
-			for (String line : content.split("\n")) {
-				if (inPrefixes && line.startsWith("PREFIX")) {
-					line = line.replace("PREFIX", "@prefix") + " .";
-				} else {
-					inPrefixes = false;
-				}
-				sb.append(line).append("\n");
-			}
-			return sb.toString();
-		}
-		return content;
-	}
-
-	private static String cleanupFiles(String content) {
-		if (content == null) {
-			return null;
-		}
-		return content.replace("file:///", "");
-	}
-
 	private static Model filterModelByReachability(Model model, List<String> rootIds) {
 		Model filteredModel = ModelFactory.createDefaultModel();
 		filteredModel.setNsPrefixes(model.getNsPrefixMap());
@@ -395,71 +492,47 @@ public class MetadataExporter {
 	private static final int MAX_DEPTH = 20;
 	private static final int MAX_ENTITIES = 1000;
 
+	/**
+	 * Collects the published entities linked from the starting ones (the entities of a typed export), breadth
+	 * first. The links of a whole level are gathered before any is resolved, so an entity linked several times
+	 * is retrieved once by instance id, and the starting entities are not retrieved again. With
+	 * INGESTOR_EXPORT_RESOLVE_THREADS above 1, the entities of a level are retrieved concurrently.
+	 */
 	private static List<EPOSDataModelEntity> collectAllLinkedEntities(List<EPOSDataModelEntity> startingEntities) {
 		Set<EPOSDataModelEntity> allEntities = new LinkedHashSet<>(startingEntities);
 		Set<String> visitedUids = new HashSet<>();
 		Queue<EPOSDataModelEntity> queue = new LinkedList<>();
 		Map<String, EPOSDataModelEntity> linkedEntityCache = new HashMap<>();
 		Map<EntityNames, AbstractAPI> apiCache = new HashMap<>();
-		Map<Class<?>, List<Method>> getterMethodsCache = new HashMap<>();
 
 		// Initialize with starting entities
 		for (EPOSDataModelEntity entity : startingEntities) {
 			visitedUids.add(entity.getUid());
 			queue.add(entity);
+			if (entity.getInstanceId() != null && isPublished(entity)) {
+				linkedEntityCache.put(entity.getClass().getSimpleName().toUpperCase() + ":" + entity.getInstanceId(), entity);
+			}
 		}
 
 		int currentDepth = 0;
 
 		while (!queue.isEmpty() && currentDepth < MAX_DEPTH && allEntities.size() < MAX_ENTITIES) {
-			int levelSize = queue.size();
 			currentDepth++;
 
-			for (int i = 0; i < levelSize; i++) {
+			List<LinkedEntity> links = new ArrayList<>();
+			while (!queue.isEmpty()) {
 				EPOSDataModelEntity currentEntity = queue.poll();
 				LOGGER.debug("Processing entity {} at depth {}", currentEntity.getUid(), currentDepth);
+				LinkSchema.forEachLink(currentEntity, links::add);
+			}
 
-				List<Method> methods = getterMethodsCache.computeIfAbsent(currentEntity.getClass(), clazz ->
-						java.util.Arrays.stream(clazz.getMethods())
-								.filter(method -> method.getName().startsWith("get") && method.getParameterCount() == 0
-										&& !method.getName().equals("getClass") && !method.getName().equals("getUid"))
-								.collect(Collectors.toList()));
-
-				for (Method method : methods) {
-					try {
-						Object value = method.invoke(currentEntity);
-						if (value != null) {
-							if (value instanceof LinkedEntity) {
-								EPOSDataModelEntity linkedEntity = resolveLinkedEntity((LinkedEntity) value,
-										linkedEntityCache, apiCache);
-								if (linkedEntity != null && !visitedUids.contains(linkedEntity.getUid())) {
-									visitedUids.add(linkedEntity.getUid());
-									allEntities.add(linkedEntity);
-									queue.add(linkedEntity);
-									LOGGER.debug("Added linked entity: {}", linkedEntity.getUid());
-								}
-							} else if (value instanceof List) {
-								@SuppressWarnings("unchecked")
-								List<Object> list = (List<Object>) value;
-								for (Object item : list) {
-									if (item instanceof LinkedEntity) {
-										EPOSDataModelEntity linkedEntity = resolveLinkedEntity((LinkedEntity) item,
-												linkedEntityCache, apiCache);
-										if (linkedEntity != null && !visitedUids.contains(linkedEntity.getUid())) {
-											visitedUids.add(linkedEntity.getUid());
-											allEntities.add(linkedEntity);
-											queue.add(linkedEntity);
-											LOGGER.debug("Added linked entity from list: {}",
-													linkedEntity.getUid());
-										}
-									}
-								}
-							}
-						}
-					} catch (Exception e) {
-						LOGGER.debug("Error invoking method {} on {}: {}", method.getName(),
-								currentEntity.getClass().getSimpleName(), e.getLocalizedMessage());
-					}
+			prefetchLinkedEntities(links, linkedEntityCache);
+			for (LinkedEntity link : links) {
+				EPOSDataModelEntity linkedEntity = resolveLinkedEntity(link, linkedEntityCache, apiCache);
+				if (linkedEntity != null && visitedUids.add(linkedEntity.getUid())) {
+					allEntities.add(linkedEntity);
+					queue.add(linkedEntity);
+					LOGGER.debug("Added linked entity: {}", linkedEntity.getUid());
 				}
 			}
 		}
@@ -488,18 +561,7 @@ public class MetadataExporter {
 
 			EntityNames entityType = EntityNames.valueOf(entityTypeStr);
 			AbstractAPI api = apiCache.computeIfAbsent(entityType, type -> AbstractAPI.retrieveAPI(type.name()));
-			EPOSDataModelEntity entity = (EPOSDataModelEntity) api.retrieve(instanceId);
-			if (entity == null) {
-				LOGGER.warn("Linked entity not found: {} of type {}", linkedEntity.getInstanceId(), entityTypeStr);
-				linkedEntityCache.put(cacheKey, null);
-				return null;
-			}
-
-			if (!isPublished(entity)) {
-				linkedEntityCache.put(cacheKey, null);
-				return null;
-			}
-
+			EPOSDataModelEntity entity = retrieveLinkedEntity(linkedEntity, api);
 			linkedEntityCache.put(cacheKey, entity);
 			return entity;
 		} catch (Exception e) {
@@ -508,7 +570,65 @@ public class MetadataExporter {
 		}
 	}
 
+	/**
+	 * Retrieves the entities of a level that are not cached yet on the resolve pool, one API per task.
+	 * An entity whose retrieval failed is left out of the cache and resolved again sequentially.
+	 */
+	private static void prefetchLinkedEntities(List<LinkedEntity> links, Map<String, EPOSDataModelEntity> linkedEntityCache) {
+		if (RESOLVE_THREADS == 1) return;
+		Map<String, LinkedEntity> uncached = new LinkedHashMap<>();
+		for (LinkedEntity link : links) {
+			if (link.getEntityType() == null || link.getInstanceId() == null) continue;
+			String cacheKey = link.getEntityType() + ":" + link.getInstanceId();
+			if (!linkedEntityCache.containsKey(cacheKey)) uncached.putIfAbsent(cacheKey, link);
+		}
+		if (uncached.size() < 2) return;
+
+		Map<String, Future<EPOSDataModelEntity>> tasks = new LinkedHashMap<>();
+		uncached.forEach((cacheKey, link) -> tasks.put(cacheKey, RESOLVE_POOL.submit(() ->
+				retrieveLinkedEntity(link, AbstractAPI.retrieveAPI(EntityNames.valueOf(link.getEntityType()).name())))));
+		for (Map.Entry<String, Future<EPOSDataModelEntity>> task : tasks.entrySet()) {
+			try {
+				linkedEntityCache.put(task.getKey(), task.getValue().get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				tasks.values().forEach(future -> future.cancel(true));
+				throw new IllegalStateException("Interrupted while resolving the linked entities", e);
+			} catch (ExecutionException e) {
+				LOGGER.debug("Unable to prefetch linked entity {}: {}", task.getKey(), e.getCause().getLocalizedMessage());
+			}
+		}
+	}
+
+	/** @return the linked entity when it exists and is published, null otherwise **/
+	private static EPOSDataModelEntity retrieveLinkedEntity(LinkedEntity linkedEntity, AbstractAPI api) {
+		EPOSDataModelEntity entity = (EPOSDataModelEntity) api.retrieve(linkedEntity.getInstanceId());
+		if (entity == null) {
+			LOGGER.warn("Linked entity not found: {} of type {}", linkedEntity.getInstanceId(), linkedEntity.getEntityType());
+			return null;
+		}
+		return isPublished(entity) ? entity : null;
+	}
+
 	private static boolean isPublished(EPOSDataModelEntity entity) {
 		return entity != null && StatusType.PUBLISHED.equals(entity.getStatus());
 	}
+
+	private static int parseResolveThreads(String value) {
+		try {
+			if (value != null && !value.isBlank()) return Math.max(1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Invalid INGESTOR_EXPORT_RESOLVE_THREADS value {}, using the default", value);
+		}
+		return 1;
+	}
+
+	private static int parseThreads(String value) {
+		try {
+			if (value != null && !value.isBlank()) return Math.max(1, Integer.parseInt(value.trim()));
+		} catch (NumberFormatException e) {
+			LOGGER.warn("Invalid INGESTOR_EXPORT_THREADS value {}, using the default", value);
+		}
+		return Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
 }
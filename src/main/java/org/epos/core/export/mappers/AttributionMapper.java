@@ -21,7 +21,10 @@ public class AttributionMapper implements EntityMapper<Attribution> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.PROV_ATTRIBUTION);
@@ -46,7 +49,10 @@ public class AttributionMapper implements EntityMapper<Attribution> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.PROV_ATTRIBUTION);
@@ -32,7 +32,10 @@ public class CategorySchemeMapper implements EntityMapper<CategoryScheme> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SKOS_CONCEPT_SCHEME);
@@ -83,7 +86,10 @@ public class CategorySchemeMapper implements EntityMapper<CategoryScheme> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SKOS_CONCEPT_SCHEME);
@@ -22,7 +22,10 @@ public class ContactPointMapper implements EntityMapper<ContactPoint> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_CONTACT_POINT_CLASS);
@@ -61,7 +64,10 @@ public class ContactPointMapper implements EntityMapper<ContactPoint> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_CONTACT_POINT);
@@ -37,7 +37,10 @@ public class DataProductMapper implements EntityMapper<DataProduct> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.DCAT_DATASET);
@@ -262,7 +265,10 @@ public class DataProductMapper implements EntityMapper<DataProduct> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.DCAT_DATASET);
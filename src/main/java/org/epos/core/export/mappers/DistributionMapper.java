@@ -36,7 +36,10 @@ public class DistributionMapper implements EntityMapper<Distribution> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.DCAT_DISTRIBUTION_CLASS);
@@ -135,7 +138,10 @@ public class DistributionMapper implements EntityMapper<Distribution> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.DCAT_DISTRIBUTION_CLASS);
@@ -22,7 +22,10 @@ public class DocumentationMapper implements EntityMapper<Documentation> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.HYDRA_API_DOCUMENTATION);
@@ -45,7 +48,10 @@ public class DocumentationMapper implements EntityMapper<Documentation> {
             return resourceCache.get(entity.getUid());
         }
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
         RDFHelper.addType(model, subject, RDFConstants.DCT_STANDARD);
         RDFHelper.addStringLiteral(model, subject, RDFConstants.DCT_TITLE, entity.getTitle());
         RDFHelper.addStringLiteral(model, subject, RDFConstants.DCT_DESCRIPTION, entity.getDescription());
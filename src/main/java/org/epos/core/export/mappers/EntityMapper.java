@@ -9,6 +9,8 @@ import java.util.Map;
 /**
  * Interface for mapping EPOS Data Model entities to RDF.
  * Each entity type has its own mapper implementation.
+ * Mappers may run concurrently, each on its own model, sharing the resource cache: an entity is claimed with
+ * {@code putIfAbsent} once its resource is created, and only the mapper holding the claim adds its triples.
  *
  * @param <T> The EPOS Data Model entity type
  */
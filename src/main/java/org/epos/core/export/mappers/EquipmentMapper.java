@@ -34,7 +34,10 @@ public class EquipmentMapper implements EntityMapper<Equipment> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.EPOS_EQUIPMENT);
@@ -132,7 +135,10 @@ public class EquipmentMapper implements EntityMapper<Equipment> {
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.EPOS_EQUIPMENT);
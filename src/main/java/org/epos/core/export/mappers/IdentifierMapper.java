@@ -21,7 +21,10 @@ public class IdentifierMapper implements EntityMapper<Identifier> {
         }
         // Create resource
         Resource subject = model.createResource();
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.ADMS_IDENTIFIER_CLASS);
@@ -40,7 +43,10 @@ public class IdentifierMapper implements EntityMapper<Identifier> {
         }
         // Create resource
         Resource subject = model.createResource();
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.ADMS_IDENTIFIER_CLASS);
@@ -21,7 +21,10 @@ public class LocationMapper implements EntityMapper<Location> {
         }
         // Create blank node for Location
         Resource subject = RDFHelper.createBlankNode(model);
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.DCT_LOCATION);
@@ -41,7 +44,10 @@ public class LocationMapper implements EntityMapper<Location> {
         }
         // Create blank node for Location
         Resource subject = RDFHelper.createBlankNode(model);
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.DCT_LOCATION);
@@ -27,7 +27,10 @@ public class OperationMapper implements EntityMapper<Operation> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.HYDRA_OPERATION);
@@ -74,7 +77,10 @@ public class OperationMapper implements EntityMapper<Operation> {
 		}
 		// Create resource
 		Resource subject = model.createResource(entity.getUid());
-		resourceCache.put(entity.getUid(), subject);
+		Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+		if (claimed != null) {
+			return claimed;
+		}
 
 		// Add type
 		RDFHelper.addType(model, subject, RDFConstants.HYDRA_OPERATION);
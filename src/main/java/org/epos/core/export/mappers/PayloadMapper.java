@@ -21,7 +21,10 @@ public class PayloadMapper implements EntityMapper<Payload> {
             return resourceCache.get(entity.getUid());
         }
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
         RDFHelper.addType(model, subject, RDFConstants.HYDRA_CLASS);
         RDFHelper.addStringLiteral(model, subject, RDFConstants.HYDRA_TITLE, "Payload description");
         RDFHelper.addStringLiteral(model, subject, RDFConstants.HYDRA_DESCRIPTION, "Payload description");
@@ -54,7 +57,10 @@ public class PayloadMapper implements EntityMapper<Payload> {
             return resourceCache.get(entity.getUid());
         }
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
         RDFHelper.addType(model, subject, RDFConstants.HYDRA_CLASS);
         RDFHelper.addStringLiteral(model, subject, RDFConstants.HYDRA_TITLE, "Payload description");
         RDFHelper.addStringLiteral(model, subject, RDFConstants.HYDRA_DESCRIPTION, "Payload description");
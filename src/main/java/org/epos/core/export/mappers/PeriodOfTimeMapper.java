@@ -25,7 +25,10 @@ public class PeriodOfTimeMapper implements EntityMapper<PeriodOfTime> {
         }
         // Create blank node for PeriodOfTime
         Resource subject = RDFHelper.createBlankNode(model);
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.DCT_PERIOD_OF_TIME);
@@ -52,7 +55,10 @@ public class PeriodOfTimeMapper implements EntityMapper<PeriodOfTime> {
         }
         // Create blank node for PeriodOfTime
         Resource subject = RDFHelper.createBlankNode(model);
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.DCT_PERIOD_OF_TIME);
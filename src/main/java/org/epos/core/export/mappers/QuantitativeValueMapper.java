@@ -23,7 +23,10 @@ public class QuantitativeValueMapper implements EntityMapper<QuantitativeValue>
             return null;
         }
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_QUANTITATIVE_VALUE);
         RDFHelper.addLiteral(model, subject, RDFConstants.SCHEMA_VALUE, entity.getValue());
         RDFHelper.addLiteral(model, subject, RDFConstants.SCHEMA_UNIT_CODE, entity.getUnit());
@@ -36,7 +39,10 @@ public class QuantitativeValueMapper implements EntityMapper<QuantitativeValue>
             return resourceCache.get(entity.getUid());
         }
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_QUANTITATIVE_VALUE);
         RDFHelper.addLiteral(model, subject, RDFConstants.SCHEMA_VALUE, entity.getValue());
         RDFHelper.addLiteral(model, subject, RDFConstants.SCHEMA_UNIT_TEXT, entity.getUnit());
@@ -31,7 +31,10 @@ public class SoftwareApplicationMapper implements EntityMapper<SoftwareApplicati
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_SOFTWARE_APPLICATION);
@@ -137,7 +140,10 @@ public class SoftwareApplicationMapper implements EntityMapper<SoftwareApplicati
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_SOFTWARE_APPLICATION);
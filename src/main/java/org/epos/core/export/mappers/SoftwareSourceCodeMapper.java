@@ -27,7 +27,10 @@ public class SoftwareSourceCodeMapper implements EntityMapper<SoftwareSourceCode
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_SOFTWARE_SOURCE_CODE);
@@ -113,7 +116,10 @@ public class SoftwareSourceCodeMapper implements EntityMapper<SoftwareSourceCode
         }
         // Create resource
         Resource subject = model.createResource(entity.getUid());
-        resourceCache.put(entity.getUid(), subject);
+        Resource claimed = resourceCache.putIfAbsent(entity.getUid(), subject);
+        if (claimed != null) {
+            return claimed;
+        }
 
         // Add type
         RDFHelper.addType(model, subject, RDFConstants.SCHEMA_SOFTWARE_SOURCE_CODE);
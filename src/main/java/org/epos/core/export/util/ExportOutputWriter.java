@@ -0,0 +1,92 @@
+package org.epos.core.export.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer applied to the serialised export while it is written out.
+ * It rewrites the SPARQL style PREFIX directives at the top of a Turtle document into @prefix
+ * directives, and removes the "file:///" base left on relative IRIs, so the output no longer needs
+ * to be held as a string to be cleaned up.
+ */
+public class ExportOutputWriter extends Writer {
+
+    private static final String FILE_BASE = "file:///";
+
+    private final Writer out;
+
+    /** true while reading the directives at the top of a Turtle document **/
+    private boolean inPrefixes;
+    private final StringBuilder line = new StringBuilder();
+
+    /** number of characters of FILE_BASE matched by the last characters written **/
+    private int matched;
+
+    /**
+     * @param out     the destination
+     * @param turtle  true when the document is Turtle, whose PREFIX directives are rewritten
+     */
+    public ExportOutputWriter(Writer out, boolean turtle) {
+        this.out = out;
+        this.inPrefixes = turtle;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+            if (!inPrefixes) {
+                strip(c);
+                continue;
+            }
+            if (c != '\n') {
+                line.append(c);
+                continue;
+            }
+            String directive = line.toString();
+            if (directive.startsWith("PREFIX")) {
+                directive = directive.replace("PREFIX", "@prefix") + " .";
+            } else {
+                inPrefixes = false;
+            }
+            line.setLength(0);
+            for (int j = 0; j < directive.length(); j++) strip(directive.charAt(j));
+            strip('\n');
+        }
+    }
+
+    /** Writes the character, leaving out every occurrence of FILE_BASE (it has no repeated prefix) **/
+    private void strip(char c) throws IOException {
+        if (c == FILE_BASE.charAt(matched)) {
+            if (++matched == FILE_BASE.length()) matched = 0;
+            return;
+        }
+        if (matched > 0) {
+            out.write(FILE_BASE, 0, matched);
+            matched = 0;
+        }
+        if (c == FILE_BASE.charAt(0)) {
+            matched = 1;
+        } else {
+            out.write(c);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (line.length() > 0) {
+            inPrefixes = false;
+            String rest = line.toString();
+            line.setLength(0);
+            for (int j = 0; j < rest.length(); j++) strip(rest.charAt(j));
+        }
+        if (matched > 0) out.write(FILE_BASE, 0, matched);
+        matched = 0;
+        out.close();
+    }
+}
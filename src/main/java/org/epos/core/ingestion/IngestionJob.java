@@ -0,0 +1,177 @@
+package org.epos.core.ingestion;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.epos.core.IngestionListener;
+import org.epos.core.IngestionPhase;
+
+/**
+ * State of an asynchronous ingestion, updated by the worker running it and read by the job endpoints.
+ * Progress is counted per phase: the number of files currently in the phase, the number of files
+ * that completed it and the items it produced (triples parsed, entities mapped, entities persisted).
+ */
+public class IngestionJob implements IngestionListener {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, PARTIAL, FAILED }
+
+    private static final int MAX_ERRORS = 100;
+
+    public static class PhaseProgress {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger items = new AtomicInteger();
+
+        public int getRunning() {
+            return running.get();
+        }
+
+        public int getCompleted() {
+            return completed.get();
+        }
+
+        public int getItems() {
+            return items.get();
+        }
+    }
+
+    private final String id;
+    private final String type;
+    private final String path;
+    private final String mapping;
+    private final Instant submittedAt = Instant.now();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile int filesTotal;
+    private final AtomicInteger filesCompleted = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final AtomicInteger filesSkipped = new AtomicInteger();
+    private final Map<IngestionPhase, PhaseProgress> phases = new EnumMap<>(IngestionPhase.class);
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    public IngestionJob(String id, String type, String path, String mapping) {
+        this.id = id;
+        this.type = type;
+        this.path = path;
+        this.mapping = mapping;
+        for (IngestionPhase phase : IngestionPhase.values()) phases.put(phase, new PhaseProgress());
+    }
+
+    @Override
+    public void phaseStarted(String source, IngestionPhase phase) {
+        phases.get(phase).running.incrementAndGet();
+    }
+
+    @Override
+    public void phaseCompleted(String source, IngestionPhase phase, int items) {
+        PhaseProgress progress = phases.get(phase);
+        /** phases without an explicit start (e.g. FETCH of a request body) do not decrement **/
+        progress.running.updateAndGet(running -> Math.max(0, running - 1));
+        progress.completed.incrementAndGet();
+        progress.items.addAndGet(items);
+        if (phase == IngestionPhase.PERSIST) filesCompleted.incrementAndGet();
+    }
+
+    @Override
+    public void fileFailed(String source, String error) {
+        filesFailed.incrementAndGet();
+        addError(source + ": " + error);
+    }
+
+    @Override
+    public void fileSkipped(String source) {
+        filesSkipped.incrementAndGet();
+        filesCompleted.incrementAndGet();
+    }
+
+    void addError(String error) {
+        if (errors.size() < MAX_ERRORS) errors.add(error);
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void finished(Status status) {
+        finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public void setFilesTotal(int filesTotal) {
+        this.filesTotal = filesTotal;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getMapping() {
+        return mapping;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public int getFilesTotal() {
+        return filesTotal;
+    }
+
+    public int getFilesCompleted() {
+        return filesCompleted.get();
+    }
+
+    public int getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    /** Files resumed from the checkpoint journal of an interrupted run, counted as completed **/
+    public int getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    public int getEntitiesPersisted() {
+        return phases.get(IngestionPhase.PERSIST).getItems();
+    }
+
+    public Map<IngestionPhase, PhaseProgress> getPhases() {
+        return Collections.unmodifiableMap(phases);
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+}
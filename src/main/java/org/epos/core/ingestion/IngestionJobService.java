@@ -0,0 +1,125 @@
+package org.epos.core.ingestion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.epos.core.MultipleFileIngestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs ingestions in the background on a bounded worker pool with a bounded queue.
+ * The number of workers limits how many ingestions compete for the database at the same time;
+ * submissions beyond the queue capacity are rejected instead of piling up.
+ * Finished jobs are kept in memory, the oldest ones are dropped beyond the retention limit.
+ */
+@Service
+public class IngestionJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestionJobService.class);
+
+    @Value("${ingestion.jobs.workers:2}")
+    private int workers;
+
+    @Value("${ingestion.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${ingestion.jobs.retained:200}")
+    private int retained;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "ingestion-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        LOGGER.info("Ingestion job service started with {} workers and a queue of {}", workers, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param type    the population type, for reporting
+     * @param path    the ingested path, for reporting
+     * @param mapping the mapping model, for reporting
+     * @param work    the ingestion, receives the job to report its progress and returns one result per file
+     * @return the queued job
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public IngestionJob submit(String type, String path, String mapping, Function<IngestionJob, List<MultipleFileIngestion.FileResult>> work) {
+        IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), type, path, mapping);
+        evictFinishedJobs();
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        LOGGER.info("[Ingestion job queued] {} for {}", job.getId(), path);
+        return job;
+    }
+
+    public IngestionJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return all retained jobs, most recent first
+     */
+    public List<IngestionJob> list() {
+        List<IngestionJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(IngestionJob::getSubmittedAt).reversed());
+        return list;
+    }
+
+    private void run(IngestionJob job, Function<IngestionJob, List<MultipleFileIngestion.FileResult>> work) {
+        job.started();
+        LOGGER.info("[Ingestion job started] {}", job.getId());
+        try {
+            List<MultipleFileIngestion.FileResult> results = work.apply(job);
+            long failed = results.stream().filter(MultipleFileIngestion.FileResult::isFailed).count();
+            if (failed == 0) job.finished(IngestionJob.Status.COMPLETED);
+            else job.finished(failed == results.size() ? IngestionJob.Status.FAILED : IngestionJob.Status.PARTIAL);
+        } catch (Exception e) {
+            LOGGER.error("[ERROR] Ingestion job {} failed: {}", job.getId(), e.getLocalizedMessage());
+            job.addError(e.getLocalizedMessage() == null ? e.getClass().getSimpleName() : e.getLocalizedMessage());
+            job.finished(IngestionJob.Status.FAILED);
+        }
+        LOGGER.info("[Ingestion job finished] {} with status {}", job.getId(), job.getStatus());
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < retained) return;
+        jobs.values().stream()
+                .filter(IngestionJob::isFinished)
+                .sorted(Comparator.comparing(IngestionJob::getFinishedAt))
+                .limit(jobs.size() - retained + 1L)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+}
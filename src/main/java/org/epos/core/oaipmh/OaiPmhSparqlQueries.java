@@ -2,8 +2,11 @@ package org.epos.core.oaipmh;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.epos.core.IriCompactor;
+
 /**
  * SPARQL query templates for OAI-PMH operations.
  * Provides methods to generate SPARQL queries for listing records, 
@@ -25,6 +28,19 @@ public class OaiPmhSparqlQueries {
 		PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>
 		""";
 
+	/**
+	 * Namespaces used to shorten RDF type URIs in set names.
+	 */
+	private static final IriCompactor TYPE_COMPACTOR = new IriCompactor(Map.of(
+		"dcat", "http://www.w3.org/ns/dcat#",
+		"schema", "http://schema.org/",
+		"epos", "https://www.epos-eu.org/epos-dcat-ap#",
+		"hydra", "http://www.w3.org/ns/hydra/core#",
+		"skos", "http://www.w3.org/2004/02/skos/core#",
+		"foaf", "http://xmlns.com/foaf/0.1/",
+		"dct", "http://purl.org/dc/terms/"
+	));
+
 	/**
 	 * List of RDF types that are exposed as OAI-PMH records.
 	 * Only named resources (not blank nodes) of these types are harvestable.
@@ -75,29 +91,7 @@ public class OaiPmhSparqlQueries {
 	 * Maps full URIs to prefixed type names.
 	 */
 	public static String compactTypeUri(String fullUri) {
-		if (fullUri == null) return null;
-		if (fullUri.startsWith("http://www.w3.org/ns/dcat#")) {
-			return "dcat:" + fullUri.substring("http://www.w3.org/ns/dcat#".length());
-		}
-		if (fullUri.startsWith("http://schema.org/")) {
-			return "schema:" + fullUri.substring("http://schema.org/".length());
-		}
-		if (fullUri.startsWith("https://www.epos-eu.org/epos-dcat-ap#")) {
-			return "epos:" + fullUri.substring("https://www.epos-eu.org/epos-dcat-ap#".length());
-		}
-		if (fullUri.startsWith("http://www.w3.org/ns/hydra/core#")) {
-			return "hydra:" + fullUri.substring("http://www.w3.org/ns/hydra/core#".length());
-		}
-		if (fullUri.startsWith("http://www.w3.org/2004/02/skos/core#")) {
-			return "skos:" + fullUri.substring("http://www.w3.org/2004/02/skos/core#".length());
-		}
-		if (fullUri.startsWith("http://xmlns.com/foaf/0.1/")) {
-			return "foaf:" + fullUri.substring("http://xmlns.com/foaf/0.1/".length());
-		}
-		if (fullUri.startsWith("http://purl.org/dc/terms/")) {
-			return "dct:" + fullUri.substring("http://purl.org/dc/terms/".length());
-		}
-		return fullUri;
+		return TYPE_COMPACTOR.compact(fullUri);
 	}
 
 	/**
@@ -0,0 +1,82 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.epos.core.ChangeDetection;
+import org.epos.eposdatamodel.ContactPoint;
+import org.epos.eposdatamodel.DataProduct;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the canonical content hash of the differential re-ingestion.
+ */
+class ChangeDetectionTest {
+
+	private static DataProduct dataProduct(List<String> titles, String fileProvenance, String instanceId) {
+		DataProduct dataProduct = new DataProduct();
+		dataProduct.setUid("https://example.org/dataproduct/1");
+		dataProduct.setTitle(new ArrayList<>(titles));
+		dataProduct.setKeywords("seismology,volcanology");
+		dataProduct.setFileProvenance(fileProvenance);
+		dataProduct.setInstanceId(instanceId);
+		return dataProduct;
+	}
+
+	private static LinkedEntity link(String uid) {
+		LinkedEntity linkedEntity = new LinkedEntity();
+		linkedEntity.setUid(uid);
+		linkedEntity.setEntityType("CONTACTPOINT");
+		return linkedEntity;
+	}
+
+	private static ContactPoint contactPoint(String uid, String role) {
+		ContactPoint contactPoint = new ContactPoint();
+		contactPoint.setUid(uid);
+		contactPoint.setRole(role);
+		return contactPoint;
+	}
+
+	private static DataProduct withContactPoint(String uid) {
+		DataProduct dataProduct = dataProduct(List.of("Title"), "AAAA", null);
+		dataProduct.setContactPoint(new ArrayList<>(List.of(link(uid))));
+		return dataProduct;
+	}
+
+	@Test
+	void testHashIgnoresProvenanceAndValueOrder() {
+		String hash = ChangeDetection.hash(dataProduct(List.of("Title", "Titolo"), "AAAA", null));
+		assertEquals(hash, ChangeDetection.hash(dataProduct(List.of("Titolo", "Title"), "BBBB", "instance")));
+	}
+
+	@Test
+	void testHashChangesWithContent() {
+		String hash = ChangeDetection.hash(dataProduct(List.of("Title"), "AAAA", null));
+		assertNotEquals(hash, ChangeDetection.hash(dataProduct(List.of("Another title"), "AAAA", null)));
+	}
+
+	@Test
+	void testHashIgnoresBlankNodeLabels() {
+		Map<String, ContactPoint> first = Map.of("_:b0", contactPoint("_:b0", "manager"));
+		Map<String, ContactPoint> second = Map.of("_:b7", contactPoint("_:b7", "manager"));
+
+		assertEquals(ChangeDetection.hash(withContactPoint("_:b0"), first::get),
+				ChangeDetection.hash(withContactPoint("_:b7"), second::get));
+		assertTrue(ChangeDetection.isBlankNode("_:b0"));
+		assertFalse(ChangeDetection.isBlankNode("https://example.org/contact/1"));
+	}
+
+	@Test
+	void testHashChangesWithNestedBlankNodeContent() {
+		Map<String, ContactPoint> previous = Map.of("_:b0", contactPoint("_:b0", "manager"));
+		Map<String, ContactPoint> current = Map.of("_:b3", contactPoint("_:b3", "author"));
+
+		/** only the blank node changed, the data product must be persisted again with it **/
+		assertNotEquals(ChangeDetection.hash(withContactPoint("_:b0"), previous::get),
+				ChangeDetection.hash(withContactPoint("_:b3"), current::get));
+	}
+}
@@ -0,0 +1,102 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.epos.core.CheckpointJournal;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.StatusType;
+
+/**
+ * Unit tests for the checkpoint journal of multi-file ingestions, on local file URLs.
+ */
+class CheckpointJournalTest {
+
+	private static final String TTL = "<http://example.org/a> a <http://www.w3.org/ns/dcat#Dataset> .\n";
+
+	private static final String UID = "http://example.org/a";
+
+	@TempDir
+	Path directory;
+
+	private Path document;
+	private String url;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		document = directory.resolve("catalogue.ttl");
+		Files.writeString(document, TTL, StandardCharsets.UTF_8);
+		url = document.toUri().toString();
+	}
+
+	private CheckpointJournal open(Duration maxAge) {
+		return CheckpointJournal.open(directory.resolve("journals"), maxAge, List.of(url), "EDM-TO-DCAT-AP", null, StatusType.PUBLISHED);
+	}
+
+	private static Map<String, LinkedEntity> result() {
+		LinkedEntity linkedEntity = new LinkedEntity();
+		linkedEntity.setUid(UID);
+		linkedEntity.setEntityType("DATAPRODUCT");
+		linkedEntity.setInstanceId("instance");
+		return Map.of(UID, linkedEntity);
+	}
+
+	private Path journalFile() throws IOException {
+		try (Stream<Path> files = Files.list(directory.resolve("journals"))) {
+			return files.filter(file -> file.toString().endsWith(".journal")).findFirst().orElseThrow();
+		}
+	}
+
+	@Test
+	void testResumesUnchangedFile() {
+		CheckpointJournal journal = open(Duration.ofHours(1));
+		assertNull(journal.resume(url));
+		journal.completed(url, DigestUtils.sha256Hex(TTL), result());
+
+		Map<String, LinkedEntity> resumed = open(Duration.ofHours(1)).resume(url);
+		assertNotNull(resumed);
+		assertEquals("instance", resumed.get(UID).getInstanceId());
+	}
+
+	@Test
+	void testIngestsChangedFileAgain() throws IOException {
+		open(Duration.ofHours(1)).completed(url, DigestUtils.sha256Hex(TTL), result());
+		Files.writeString(document, TTL + "<http://example.org/b> a <http://www.w3.org/ns/dcat#Dataset> .\n", StandardCharsets.UTF_8);
+
+		assertNull(open(Duration.ofHours(1)).resume(url));
+	}
+
+	@Test
+	void testIgnoresExpiredJournal() throws IOException {
+		open(Duration.ofHours(1)).completed(url, DigestUtils.sha256Hex(TTL), result());
+		Path journal = journalFile();
+		Files.setLastModifiedTime(journal, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+		assertNull(open(Duration.ofHours(1)).resume(url));
+		assertFalse(Files.exists(journal));
+	}
+
+	@Test
+	void testCompletedRunIsNotResumed() {
+		CheckpointJournal journal = open(Duration.ofHours(1));
+		journal.completed(url, DigestUtils.sha256Hex(TTL), result());
+		journal.delete();
+
+		assertNull(open(Duration.ofHours(1)).resume(url));
+	}
+}
@@ -0,0 +1,136 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDFS;
+import org.epos.core.export.EPOSVersion;
+import org.epos.core.export.ExportCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import metadataapis.EntityNames;
+
+/**
+ * Unit tests for the generation-keyed export cache, with a model built in memory instead of the database.
+ */
+class ExportCacheTest {
+
+	@TempDir
+	Path cacheDirectory;
+
+	private final AtomicInteger builds = new AtomicInteger();
+
+	private Supplier<Model> builder(String label) {
+		return () -> {
+			builds.incrementAndGet();
+			Model model = ModelFactory.createDefaultModel();
+			model.createResource("http://example.org/a").addProperty(RDFS.label, label);
+			return model;
+		};
+	}
+
+	private static String written(ExportCache.Result result) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		result.writeTo(out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void testRepeatedExportIsServedFromMemory() throws IOException {
+		ExportCache cache = new ExportCache(1024 * 1024, null, 0);
+
+		String first = written(cache.export(EntityNames.DATAPRODUCT, List.of("b", "a"), "turtle", EPOSVersion.V1, builder("first")));
+		String second = written(cache.export(EntityNames.DATAPRODUCT, List.of("a", "b"), "turtle", EPOSVersion.V1, builder("second")));
+
+		assertEquals(1, builds.get(), "the order of the UIDs does not change the export");
+		assertEquals(first, second);
+		assertTrue(first.contains("first"));
+
+		written(cache.export(EntityNames.DATAPRODUCT, List.of("a", "b"), "n-triples", EPOSVersion.V1, builder("first")));
+		assertEquals(2, builds.get(), "another format is another export");
+	}
+
+	@Test
+	void testNewGenerationRebuildsTheExport() throws IOException {
+		ExportCache cache = new ExportCache(1024 * 1024, cacheDirectory, 1024 * 1024);
+
+		written(cache.export(null, null, "turtle", EPOSVersion.V1, builder("before")));
+		cache.advance();
+		String after = written(cache.export(null, null, "turtle", EPOSVersion.V1, builder("after")));
+
+		assertEquals(2, builds.get());
+		assertTrue(after.contains("after"));
+	}
+
+	@Test
+	void testExportTooLargeForMemoryIsServedFromDisk() throws IOException {
+		ExportCache cache = new ExportCache(0, cacheDirectory, 1024 * 1024);
+
+		String first = written(cache.export(null, null, "turtle", EPOSVersion.V1, builder("on disk")));
+		String second = written(cache.export(null, null, "turtle", EPOSVersion.V1, builder("rebuilt")));
+
+		assertEquals(1, builds.get());
+		assertEquals(first, second);
+	}
+
+	@Test
+	void testEmptyExportIsCached() throws IOException {
+		ExportCache cache = new ExportCache(1024 * 1024, null, 0);
+		Supplier<Model> nothing = () -> {
+			builds.incrementAndGet();
+			return null;
+		};
+
+		assertTrue(cache.export(EntityNames.ORGANIZATION, List.of("x"), "turtle", EPOSVersion.V1, nothing).isEmpty());
+		assertTrue(cache.export(EntityNames.ORGANIZATION, List.of("x"), "turtle", EPOSVersion.V1, nothing).isEmpty());
+		assertEquals(1, builds.get());
+	}
+
+	@Test
+	void testConcurrentIdenticalExportsAreBuiltOnce() throws Exception {
+		ExportCache cache = new ExportCache(1024 * 1024, cacheDirectory, 1024 * 1024);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Supplier<Model> slow = () -> {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return builder("slow").get();
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<String> first = executor.submit(() -> written(cache.export(null, null, "turtle", EPOSVersion.V1, slow)));
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			Future<String> second = executor.submit(() -> written(cache.export(null, null, "turtle", EPOSVersion.V1, slow)));
+			Future<String> third = executor.submit(() -> written(cache.export(null, null, "turtle", EPOSVersion.V1, slow)));
+			/** let the other requests reach the pending export **/
+			Thread.sleep(200);
+			release.countDown();
+
+			assertEquals(first.get(), second.get());
+			assertEquals(first.get(), third.get());
+			assertEquals(1, builds.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
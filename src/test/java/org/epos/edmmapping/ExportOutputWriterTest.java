@@ -0,0 +1,48 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.epos.core.export.util.ExportOutputWriter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the rewriting of the serialised export while it is written.
+ */
+class ExportOutputWriterTest {
+
+	private static String rewrite(String content, boolean turtle, int chunkSize) throws IOException {
+		StringWriter out = new StringWriter();
+		try (ExportOutputWriter writer = new ExportOutputWriter(out, turtle)) {
+			for (int from = 0; from < content.length(); from += chunkSize) {
+				writer.write(content, from, Math.min(chunkSize, content.length() - from));
+			}
+		}
+		return out.toString();
+	}
+
+	@Test
+	void testTurtlePrefixesAndFileBase() throws IOException {
+		String turtle = "PREFIX dcat: <http://www.w3.org/ns/dcat#>\n"
+				+ "PREFIX dct:  <http://purl.org/dc/terms/>\n"
+				+ "\n"
+				+ "<file:///dataset/1> a dcat:Dataset ;\n"
+				+ "    dct:description \"PREFIX is kept here, file:/ too\" .\n";
+		String expected = "@prefix dcat: <http://www.w3.org/ns/dcat#> .\n"
+				+ "@prefix dct:  <http://purl.org/dc/terms/> .\n"
+				+ "\n"
+				+ "<dataset/1> a dcat:Dataset ;\n"
+				+ "    dct:description \"PREFIX is kept here, file:/ too\" .\n";
+		for (int chunkSize : new int[] { 1, 3, 7, 4096 }) {
+			assertEquals(expected, rewrite(turtle, true, chunkSize));
+		}
+	}
+
+	@Test
+	void testOtherFormatsOnlyLoseFileBase() throws IOException {
+		String jsonld = "{ \"@id\" : \"file:///dataset/1\", \"note\" : \"PREFIX ffile:///\" }";
+		assertEquals("{ \"@id\" : \"dataset/1\", \"note\" : \"PREFIX f\" }", rewrite(jsonld, false, 5));
+	}
+}
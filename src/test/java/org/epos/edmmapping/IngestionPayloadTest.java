@@ -0,0 +1,85 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.epos.core.IngestionPayload;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the splitting of uploaded payloads into metadata documents.
+ */
+class IngestionPayloadTest {
+
+	private static final String TTL_A = "<http://example.org/a> a <http://www.w3.org/ns/dcat#Dataset> .\n";
+	private static final String TTL_B = "<http://example.org/b> a <http://www.w3.org/ns/dcat#Distribution> .\n";
+
+	private static Map<String, String> read(byte[] payload, String contentEncoding) throws IOException {
+		Map<String, String> documents = new LinkedHashMap<>();
+		IngestionPayload.readDocuments(new ByteArrayInputStream(payload), contentEncoding, "text/turtle", "body",
+				(name, contentType, content) -> documents.put(name, new String(content.readAllBytes(), StandardCharsets.UTF_8)));
+		return documents;
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(content);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	void testPlainAndEncodedBody() throws IOException {
+		assertEquals(Map.of("body", TTL_A), read(TTL_A.getBytes(StandardCharsets.UTF_8), null));
+		assertEquals(Map.of("body", TTL_A), read(gzip(TTL_A.getBytes(StandardCharsets.UTF_8)), "gzip"));
+		assertTrue(read(new byte[0], null).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> read(TTL_A.getBytes(StandardCharsets.UTF_8), "br"));
+	}
+
+	@Test
+	void testZipArchive() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			zip.putNextEntry(new ZipEntry("catalogue/"));
+			zip.putNextEntry(new ZipEntry("catalogue/a.ttl"));
+			zip.write(TTL_A.getBytes(StandardCharsets.UTF_8));
+			zip.putNextEntry(new ZipEntry("catalogue/b.ttl.gz"));
+			zip.write(gzip(TTL_B.getBytes(StandardCharsets.UTF_8)));
+		}
+
+		Map<String, String> documents = read(out.toByteArray(), null);
+		assertEquals(2, documents.size());
+		assertEquals(TTL_A, documents.get("catalogue/a.ttl"));
+		assertEquals(TTL_B, documents.get("catalogue/b.ttl.gz"));
+	}
+
+	@Test
+	void testGzippedTarArchive() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (TarArchiveOutputStream tar = new TarArchiveOutputStream(out)) {
+			for (Map.Entry<String, String> document : Map.of("a.ttl", TTL_A, "b.ttl", TTL_B).entrySet()) {
+				TarArchiveEntry entry = new TarArchiveEntry(document.getKey());
+				byte[] content = document.getValue().getBytes(StandardCharsets.UTF_8);
+				entry.setSize(content.length);
+				tar.putArchiveEntry(entry);
+				tar.write(content);
+				tar.closeArchiveEntry();
+			}
+		}
+
+		Map<String, String> documents = read(gzip(out.toByteArray()), null);
+		assertEquals(Map.of("a.ttl", TTL_A, "b.ttl", TTL_B), documents);
+	}
+}
@@ -0,0 +1,51 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.epos.core.LinkSchema;
+import org.epos.eposdatamodel.DataProduct;
+import org.epos.eposdatamodel.LinkedEntity;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the precomputed link getters of the EPOS Data Model classes.
+ */
+class LinkSchemaTest {
+
+	private static LinkedEntity link(String uid, String entityType) {
+		LinkedEntity linkedEntity = new LinkedEntity();
+		linkedEntity.setUid(uid);
+		linkedEntity.setEntityType(entityType);
+		return linkedEntity;
+	}
+
+	@Test
+	void testLinksOfAnEntity() {
+		DataProduct dataProduct = new DataProduct();
+		dataProduct.setUid("https://example.org/dataproduct/1");
+		dataProduct.setTitle(new ArrayList<>(List.of("Title")));
+		dataProduct.setDistribution(new ArrayList<>(List.of(
+				link("https://example.org/distribution/1", "DISTRIBUTION"),
+				link("https://example.org/distribution/2", "DISTRIBUTION"))));
+		dataProduct.setContactPoint(new ArrayList<>(List.of(link("https://example.org/contact/1", "CONTACTPOINT"))));
+
+		List<String> uids = LinkSchema.links(dataProduct).stream().map(LinkedEntity::getUid).collect(Collectors.toList());
+
+		assertEquals(3, uids.size());
+		assertTrue(uids.containsAll(List.of("https://example.org/distribution/1", "https://example.org/distribution/2",
+				"https://example.org/contact/1")));
+	}
+
+	@Test
+	void testEntityWithoutLinks() {
+		DataProduct dataProduct = new DataProduct();
+		dataProduct.setUid("https://example.org/dataproduct/2");
+		dataProduct.setTitle(new ArrayList<>(List.of("Title")));
+
+		assertTrue(LinkSchema.links(dataProduct).isEmpty());
+	}
+}
@@ -0,0 +1,102 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.epos.core.IriCompactor;
+import org.epos.core.MappingIndex;
+import org.epos.core.SPARQLManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the precompiled mapping ontology index.
+ */
+class MappingIndexTest {
+
+	private static final String EDM = MappingIndex.EDM_NAMESPACE;
+	private static final String DCAT = "http://www.w3.org/ns/dcat#";
+	private static final String DCT = "http://purl.org/dc/terms/";
+	private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+	private Model modelmapping;
+
+	@BeforeEach
+	void setUp() {
+		modelmapping = ModelFactory.createDefaultModel();
+		modelmapping.setNsPrefix("edm", EDM);
+		modelmapping.setNsPrefix("dcat", DCAT);
+		modelmapping.setNsPrefix("dct", DCT);
+		modelmapping.setNsPrefix("xsd", XSD);
+		modelmapping.setNsPrefix("owl", OWL.NS);
+		modelmapping.setNsPrefix("rdfs", RDFS.uri);
+		modelmapping.setNsPrefix("rdf", RDF.uri);
+
+		Resource dataProduct = modelmapping.createResource(EDM + "DataProduct");
+		dataProduct.addProperty(OWL.equivalentClass, modelmapping.createResource(DCAT + "Dataset"));
+
+		Resource title = modelmapping.createResource(EDM + "title");
+		title.addProperty(RDFS.domain, dataProduct);
+		title.addProperty(OWL.equivalentProperty, modelmapping.createResource(DCT + "title"));
+		title.addProperty(RDFS.range, modelmapping.createResource(XSD + "string"));
+
+		Resource distribution = modelmapping.createResource(EDM + "distribution");
+		distribution.addProperty(RDFS.domain, dataProduct);
+		distribution.addProperty(OWL.equivalentProperty, modelmapping.createResource(DCAT + "distribution"));
+		distribution.addProperty(RDFS.range, modelmapping.createResource(EDM + "Distribution"));
+	}
+
+	@Test
+	void testRetrieveMappedClass() {
+		MappingIndex index = MappingIndex.of(modelmapping);
+
+		assertEquals("DataProduct", index.retrieveEDMMappedClass(DCAT + "Dataset"));
+		assertEquals("DataProduct", index.retrieveEDMMappedClass("dcat:Dataset"));
+		assertNull(index.retrieveEDMMappedClass(DCAT + "Catalog"));
+		assertEquals("DataProduct", SPARQLManager.retrieveEDMMappedClass(DCAT + "Dataset", modelmapping));
+	}
+
+	@Test
+	void testRetrievePropertyValue() {
+		MappingIndex index = MappingIndex.of(modelmapping);
+
+		Map<String, String> title = index.retrievePropertyValueInEDM(DCT + "title", "DataProduct");
+		assertNotNull(title);
+		assertEquals("title", title.get("property"));
+		assertEquals("string", title.get("range"));
+		assertEquals("", title.get("prop"));
+
+		Map<String, String> distribution = index.retrievePropertyValueInEDM("dcat:distribution", "DataProduct");
+		assertNotNull(distribution);
+		assertEquals("distribution", distribution.get("property"));
+		assertEquals("Distribution", distribution.get("range"));
+
+		assertNull(index.retrievePropertyValueInEDM(DCT + "title", "Distribution"));
+		assertNull(index.retrievePropertyValueInEDM(DCT + "description", "DataProduct"));
+	}
+
+	@Test
+	void testCompactorUsesLongestNamespace() {
+		IriCompactor compactor = new IriCompactor(Map.of(
+				"ex", "http://example.org/",
+				"exv", "http://example.org/vocab(1)#"));
+
+		assertEquals("exv:term", compactor.compact("http://example.org/vocab(1)#term"));
+		assertEquals("ex:other", compactor.compact("http://example.org/other"));
+		assertEquals("urn:x:1", compactor.compact("urn:x:1"));
+		assertEquals("term", compactor.localName("http://example.org/vocab(1)#term"));
+	}
+
+	@Test
+	void testIndexIsBuiltOncePerModel() {
+		assertSame(MappingIndex.of(modelmapping), MappingIndex.of(modelmapping));
+		assertNull(MappingIndex.of(null));
+	}
+}
@@ -0,0 +1,62 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.epos.core.ParallelLineParser;
+import org.epos.core.RDFSyntax;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the syntax selection and the chunked N-Triples parser.
+ */
+class RDFSyntaxTest {
+
+	@Test
+	void testDetect() {
+		assertEquals(Lang.NTRIPLES, RDFSyntax.detect("application/n-triples; charset=utf-8", "https://example.org/dump"));
+		assertEquals(Lang.TURTLE, RDFSyntax.detect("text/plain", "https://example.org/catalogue.ttl"));
+		assertEquals(Lang.NQUADS, RDFSyntax.detect(null, "https://example.org/catalogue.nq.gz"));
+		assertEquals(Lang.JSONLD, RDFSyntax.detect("application/ld+json", null));
+		assertEquals(Lang.RDFXML, RDFSyntax.detect(null, "catalogue.rdf?version=2"));
+		assertEquals(Lang.TURTLE, RDFSyntax.detect("application/octet-stream", "request body"));
+	}
+
+	@Test
+	void testChunkedParseKeepsOrderAndBlankNodes() {
+		StringBuilder ntriples = new StringBuilder();
+		int count = 50000;
+		for (int i = 0; i < count; i++) {
+			ntriples.append("<http://example.org/s").append(i).append("> <http://example.org/p> _:shared .\n");
+		}
+
+		Graph graph = GraphFactory.createDefaultGraph();
+		ParallelLineParser.parse(new ByteArrayInputStream(ntriples.toString().getBytes(StandardCharsets.UTF_8)),
+				Lang.NTRIPLES, RDFSyntax.toGraph(graph));
+
+		assertEquals(count, graph.size());
+		Node p = NodeFactory.createURI("http://example.org/p");
+		Node first = graph.find(NodeFactory.createURI("http://example.org/s0"), p, Node.ANY).next().getObject();
+		Node last = graph.find(NodeFactory.createURI("http://example.org/s" + (count - 1)), p, Node.ANY).next().getObject();
+		assertTrue(first.isBlank());
+		assertEquals(first, last);
+		assertNotEquals("shared", first.getBlankNodeLabel());
+	}
+
+	@Test
+	void testChunkedParseReportsLine() {
+		String ntriples = "<http://example.org/s> <http://example.org/p> \"ok\" .\nnot a triple\n";
+		RiotException error = assertThrows(RiotException.class, () -> ParallelLineParser.parse(
+				new ByteArrayInputStream(ntriples.getBytes(StandardCharsets.UTF_8)), Lang.NTRIPLES,
+				RDFSyntax.toGraph(GraphFactory.createDefaultGraph())));
+		assertTrue(error.getMessage().contains("line 1"));
+	}
+}
@@ -0,0 +1,91 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jena.shared.NotFoundException;
+import org.epos.core.SourceFetcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit tests for the conditional GET cache of the fetch layer, against a local stub server.
+ */
+class SourceFetcherTest {
+
+	private static final String TTL = "<http://example.org/a> a <http://www.w3.org/ns/dcat#Dataset> .\n";
+
+	@TempDir
+	Path cacheDirectory;
+
+	private HttpServer server;
+	private final List<Integer> statuses = new ArrayList<>();
+
+	@BeforeEach
+	void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/catalogue.ttl", exchange -> {
+			boolean notModified = "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"));
+			statuses.add(notModified ? 304 : 200);
+			exchange.getResponseHeaders().add("ETag", "\"v1\"");
+			exchange.getResponseHeaders().add("Content-Type", "text/turtle");
+			if (notModified) {
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				byte[] body = TTL.getBytes(StandardCharsets.UTF_8);
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	private String url(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	@Test
+	void testRevalidatesCachedDocument() throws IOException {
+		SourceFetcher fetcher = new SourceFetcher(5, 5, cacheDirectory, 1024 * 1024);
+
+		try (SourceFetcher.Resource first = fetcher.open(url("/catalogue.ttl"))) {
+			assertFalse(first.fromCache());
+			assertEquals(TTL, new String(first.content().readAllBytes(), StandardCharsets.UTF_8));
+		}
+		try (SourceFetcher.Resource second = fetcher.open(url("/catalogue.ttl"))) {
+			assertTrue(second.fromCache());
+			assertEquals("text/turtle", second.contentType());
+			assertEquals(TTL, new String(second.content().readAllBytes(), StandardCharsets.UTF_8));
+		}
+		assertEquals(List.of(200, 304), statuses);
+	}
+
+	@Test
+	void testWithoutCache() throws IOException {
+		SourceFetcher fetcher = new SourceFetcher(5, 5, null, 0);
+
+		assertEquals(TTL, fetcher.readString(url("/catalogue.ttl")));
+		assertEquals(TTL, fetcher.readString(url("/catalogue.ttl")));
+		assertEquals(List.of(200, 200), statuses);
+		assertThrows(NotFoundException.class, () -> fetcher.open(url("/missing.ttl")));
+	}
+}
@@ -0,0 +1,84 @@
+package org.epos.edmmapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.epos.core.MappingIndex;
+import org.epos.core.StreamingIngestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the mapping of streamed triples, subjects that are not contiguous in the input.
+ */
+class StreamingIngestionTest {
+
+	private static final String EDM = MappingIndex.EDM_NAMESPACE;
+	private static final String DCAT = "http://www.w3.org/ns/dcat#";
+	private static final String DCT = "http://purl.org/dc/terms/";
+	private static final String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+	private StreamingIngestion streaming;
+
+	private static Node uri(String uri) {
+		return NodeFactory.createURI(uri);
+	}
+
+	@BeforeEach
+	void setUp() {
+		Model modelmapping = ModelFactory.createDefaultModel();
+		Resource dataProduct = modelmapping.createResource(EDM + "DataProduct");
+		dataProduct.addProperty(OWL.equivalentClass, modelmapping.createResource(DCAT + "Dataset"));
+		Resource distribution = modelmapping.createResource(EDM + "Distribution");
+		distribution.addProperty(OWL.equivalentClass, modelmapping.createResource(DCAT + "Distribution"));
+
+		Resource title = modelmapping.createResource(EDM + "title");
+		title.addProperty(RDFS.domain, dataProduct);
+		title.addProperty(OWL.equivalentProperty, modelmapping.createResource(DCT + "title"));
+		title.addProperty(RDFS.range, modelmapping.createResource(XSD + "string"));
+
+		Resource hasDistribution = modelmapping.createResource(EDM + "distribution");
+		hasDistribution.addProperty(RDFS.domain, dataProduct);
+		hasDistribution.addProperty(OWL.equivalentProperty, modelmapping.createResource(DCAT + "distribution"));
+		hasDistribution.addProperty(RDFS.range, distribution);
+
+		streaming = new StreamingIngestion(MappingIndex.of(modelmapping), null, null, null);
+		streaming.start();
+	}
+
+	@Test
+	void testSubjectSplitBeforeItsBatchIsCompleted() {
+		Node first = uri("https://example.org/dataproduct/1");
+		Node second = uri("https://example.org/dataproduct/2");
+		streaming.triple(Triple.create(first, RDF.type.asNode(), uri(DCAT + "Dataset")));
+		streaming.triple(Triple.create(first, uri(DCT + "title"), NodeFactory.createLiteralString("Title")));
+		streaming.triple(Triple.create(second, RDF.type.asNode(), uri(DCAT + "Dataset")));
+		streaming.triple(Triple.create(first, uri(DCT + "title"), NodeFactory.createLiteralString("Titolo")));
+		streaming.finish();
+
+		/** the later triples complete the first data product instead of creating another one **/
+		assertEquals(2, streaming.getMapped());
+		assertEquals(4, streaming.getTriples());
+	}
+
+	@Test
+	void testBlankNodeAfterItsSubjectFails() {
+		Node first = uri("https://example.org/dataproduct/1");
+		Node distribution = NodeFactory.createBlankNode("b0");
+		streaming.triple(Triple.create(first, RDF.type.asNode(), uri(DCAT + "Dataset")));
+		streaming.triple(Triple.create(first, uri(DCAT + "distribution"), distribution));
+		streaming.triple(Triple.create(uri("https://example.org/dataproduct/2"), RDF.type.asNode(), uri(DCAT + "Dataset")));
+
+		/** the link from the first data product is already mapped, the blank node would be left without it **/
+		assertThrows(IllegalStateException.class,
+				() -> streaming.triple(Triple.create(distribution, RDF.type.asNode(), uri(DCAT + "Distribution"))));
+	}
+}